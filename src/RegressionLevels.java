@@ -0,0 +1,37 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import engine.core.MarioGame;
+import engine.core.MarioResult;
+import engine.helper.GameStatus;
+
+/**
+ * Plays every level of levels/regression with the A* agent and reports the ones it doesn't win. The agent gets
+ * a fixed budget of forward model ticks for every decision so the result doesn't depend on the machine.
+ */
+public class RegressionLevels {
+    private static final int TIMER = 30;
+    private static final long TICK_BUDGET = 1000;
+
+    public static void main(String[] args) throws IOException {
+        File[] files = new File(args.length > 0 ? args[0] : "../levels/regression/").listFiles((dir, name) -> name.endsWith(".txt"));
+        if (files == null) {
+            throw new IOException("Couldn't list the regression levels");
+        }
+        Arrays.sort(files);
+        int lost = 0;
+        for (File f : files) {
+            MarioGame game = new MarioGame();
+            game.setAgentBudget(TICK_BUDGET, 0);
+            MarioResult result = game.runGame(new agents.robinBaumgarten.Agent(), new String(Files.readAllBytes(f.toPath())), TIMER, 0, false);
+            System.out.println(f.getName() + ": " + result.getGameStatus() + " " + result.getCompletionPercentage());
+            if (result.getGameStatus() != GameStatus.WIN) {
+                lost += 1;
+            }
+        }
+        System.out.println(lost == 0 ? "All regression levels won" : lost + " regression levels lost");
+        System.exit(lost == 0 ? 0 : 1);
+    }
+}
@@ -14,6 +14,7 @@ public abstract class HeuristicSearchingAgent implements MarioAgent {
     protected final boolean[] action = new boolean[MarioActions.numberOfActions()];
     protected int[] marioPosition = null;
     protected Sensors sensors = new Sensors();
+    private float[] enemyPosition = new float[3 * 16];
 
     // enable to single-step with the enter key on stdin
     protected static final boolean stdinSingleStep = false;
@@ -191,7 +192,7 @@ public abstract class HeuristicSearchingAgent implements MarioAgent {
         if (ms == null) {
             // assume one frame of falling before we get an observation :(
             ms = new MarioState(mpos[0], mpos[1], 0.0f, 3.0f);
-            ws = new WorldState(sensors.levelScene, ms, model.getEnemiesFloatPos());
+            ws = new WorldState(sensors.levelScene, ms, enemyPosition, readEnemies(model));
         } else {
             if (mpos[0] != pred_x || mpos[1] != pred_y) {
                 if (!epsilon(mpos[0], pred_x) || !epsilon(mpos[1], pred_y)) {
@@ -208,7 +209,7 @@ public abstract class HeuristicSearchingAgent implements MarioAgent {
                 }
             }
             resync(model, !epsilon(mpos[0], pred_x), !epsilon(mpos[1], pred_y));
-            ms.ws.sync(ws, sensors.levelScene, ms, model.getEnemiesFloatPos());
+            ms.ws.sync(ws, sensors.levelScene, ms, enemyPosition, readEnemies(model));
             ws = ms.ws;
         }
         // resync these things all the time
@@ -237,6 +238,16 @@ public abstract class HeuristicSearchingAgent implements MarioAgent {
         return action;
     }
 
+    // fills enemyPosition, growing it when there are more enemies than it holds
+    private int readEnemies(MarioForwardModel model) {
+        int count = model.getEnemiesFloatPos(enemyPosition);
+        if (3 * count > enemyPosition.length) {
+            enemyPosition = new float[6 * count];
+            model.getEnemiesFloatPos(enemyPosition);
+        }
+        return count;
+    }
+
     private static boolean epsilon(float a, float b) {
         return Math.abs(a - b) < 0.01;
     }
@@ -56,14 +56,14 @@ public final class WorldState {
         }
     }
 
-    public WorldState(int[][] _map, MarioState ms, float[] enemyPosition) {
+    public WorldState(int[][] _map, MarioState ms, float[] enemyPosition, int enemyCount) {
         map = _map;
         MapX = (int) ms.x / 16 - 8;
         MapY = (int) ms.y / 16 - 8;
         succ = new HashMap<WSHashKey, WorldState>();
         enemies = new Vector<SpriteState>();
         buildHeightMap();
-        syncEnemies(this, enemyPosition, ms);
+        syncEnemies(this, enemyPosition, enemyCount, ms);
     }
 
     WorldState() {
@@ -96,13 +96,13 @@ public final class WorldState {
     }
 
     // destructive update, but returns new worldstate. bleh, it's a mess.
-    public void sync(WorldState prevws, int[][] _map, MarioState ms, float[] enemyPosition) {
+    public void sync(WorldState prevws, int[][] _map, MarioState ms, float[] enemyPosition, int enemyCount) {
         map = _map;
         MapX = (int) ms.x / 16 - 8;
         MapY = (int) ms.y / 16 - 8;
         buildHeightMap();
         succ.clear();
-        syncEnemies(prevws, enemyPosition, ms);
+        syncEnemies(prevws, enemyPosition, enemyCount, ms);
     }
 
     void buildHeightMap() {
@@ -154,12 +154,12 @@ public final class WorldState {
 
     // this function is terrible and slow, but it only needs to be done once per
     // real frame.
-    public void syncEnemies(WorldState prevws, float[] enemyObs, MarioState ms) {
+    public void syncEnemies(WorldState prevws, float[] enemyObs, int enemyCount, MarioState ms) {
         // when we get a new observation, sort the observation by x and filter
         // through the list, using the nearest enemy of the same type and comparing
         // predicted states with actual
-        EnemyObservation[] obs = new EnemyObservation[enemyObs.length / 3];
-        for (int i = 0; i < enemyObs.length; i += 3)
+        EnemyObservation[] obs = new EnemyObservation[enemyCount];
+        for (int i = 0; i < 3 * enemyCount; i += 3)
             obs[i / 3] = new EnemyObservation((int) enemyObs[i], enemyObs[i + 1], enemyObs[i + 2]);
 
         Vector<SpriteState> newenemies = new Vector<SpriteState>(enemies.size() + 2);
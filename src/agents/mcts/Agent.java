@@ -0,0 +1,47 @@
+package agents.mcts;
+
+import engine.core.MarioAgent;
+import engine.core.MarioForwardModel;
+import engine.core.MarioTimer;
+
+/**
+ * Monte carlo tree search over macro actions, the part of the tree under the chosen move is kept for the next
+ * moves. Uses one search thread per core by default, getNodesPerSecond tells how many iterations it manages in
+ * the time it gets each tick
+ */
+public class Agent implements MarioAgent {
+    private final int threads;
+    private MCTSTree tree;
+
+    public Agent() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public Agent(int threads) {
+        this.threads = threads;
+    }
+
+    @Override
+    public void initialize(MarioForwardModel model, MarioTimer timer) {
+        this.tree = new MCTSTree(this.threads);
+        // the ticks to exit field used to score the rollouts is computed on first use, do it before the game starts
+        model.getMarioTicksToExit();
+    }
+
+    @Override
+    public int getActionMask(MarioForwardModel model, MarioTimer timer) {
+        return this.tree.optimise(model, timer);
+    }
+
+    /**
+     * @return the number of search iterations per second since the start of the game
+     */
+    public double getNodesPerSecond() {
+        return this.tree.getNodesPerSecond();
+    }
+
+    @Override
+    public String getAgentName() {
+        return "MCTSAgent";
+    }
+}
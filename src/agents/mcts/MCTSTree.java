@@ -0,0 +1,335 @@
+package agents.mcts;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import engine.core.MarioForwardModel;
+import engine.core.MarioLevelReachability;
+import engine.core.MarioTimer;
+import engine.helper.GameStatus;
+import engine.helper.MarioActions;
+
+/**
+ * Tree parallel monte carlo tree search over macro actions (the same buttons held for MACRO_TICKS ticks). All the
+ * threads share one tree, a thread going down a node adds a virtual loss to it so the others spread out.
+ * Nodes are valued by the best playout found under them. Rewards are minus the estimated number of ticks the whole level takes through that node (ticks played so far
+ * plus the ticks to the exit of the level), so they stay comparable when the tree is reused for the next move.
+ */
+public class MCTSTree {
+    static final int MACRO_TICKS = 4;
+    static final int[] MACROS = {
+            mask(MarioActions.RIGHT, MarioActions.SPEED),
+            mask(MarioActions.RIGHT, MarioActions.SPEED, MarioActions.JUMP),
+            mask(MarioActions.RIGHT),
+            mask(MarioActions.RIGHT, MarioActions.JUMP),
+            mask(MarioActions.JUMP),
+            mask(),
+            mask(MarioActions.LEFT),
+            mask(MarioActions.LEFT, MarioActions.JUMP),
+            mask(MarioActions.LEFT, MarioActions.SPEED),
+            mask(MarioActions.LEFT, MarioActions.SPEED, MarioActions.JUMP)
+    };
+    // the random playouts pick the first macros (going right) more often
+    private static final double[] ROLLOUT_WEIGHTS = {4, 4, 1, 2, 1, 0.5, 0.5, 0.5, 0.5, 0.5};
+    private static final int ROLLOUT_MACROS = 4;
+
+    private static final double TICKS_PER_REWARD = 4;
+    private static final double EXPLORATION = 1.0;
+    private static final double VIRTUAL_LOSS = 1.0;
+    private static final int DEATH_PENALTY = 2000;
+    private static final int DAMAGE_PENALTY = 200;
+    private static final int UNREACHABLE_PENALTY = 500;
+    private static final long SAFETY_MARGIN = 2;
+    // iterations in a row that simulate nothing (only finished games left to select) before a budget search stops
+    private static final int MAX_IDLE_ITERATIONS = 1000;
+
+    // shared by every tree so agents don't leave threads behind when their game ends, idle workers stop on their own
+    private static final ExecutorService POOL = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "MCTSWorker");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final int threads;
+    private final MarioForwardModel[] scratch;
+    private final Random[] random;
+
+    private TreeNode root;
+    private int currentMacro = 1;
+    private int macroTicksLeft = 0;
+
+    private final AtomicLong iterations = new AtomicLong();
+    private long searchNanos = 0;
+
+    public MCTSTree(int threads) {
+        this.threads = Math.max(1, threads);
+        this.scratch = new MarioForwardModel[this.threads];
+        this.random = new Random[this.threads];
+        for (int i = 0; i < this.threads; i++) {
+            this.random[i] = new Random(i);
+        }
+    }
+
+    private static int mask(MarioActions... buttons) {
+        int mask = 0;
+        for (MarioActions b : buttons) {
+            mask |= 1 << b.getValue();
+        }
+        return mask;
+    }
+
+    public int optimise(MarioForwardModel model, MarioTimer timer) {
+        if (this.macroTicksLeft == 0) {
+            // the root is the state we expected at the end of the last macro, keep it if the game agrees
+            if (this.root == null || this.root.state == null
+                    || this.root.state.getStateHash() != model.getStateHash()) {
+                if (this.root != null) {
+                    this.release(this.root, null);
+                }
+                this.root = new TreeNode(null, -1, MACROS.length);
+                MarioForwardModel state = model.clone();
+                state.setLightweight(true);
+                this.root.state = state;
+            }
+            this.search(timer, 0.5f);
+            TreeNode best = this.bestChild();
+            this.currentMacro = best.macro;
+            this.macroTicksLeft = MACRO_TICKS;
+            best.parent = null;
+            this.release(this.root, best);
+            this.root = best;
+        }
+        // plan ahead for the state the current macro ends in while it is being played
+        this.search(timer, 1);
+        this.macroTicksLeft -= 1;
+        return MACROS[this.currentMacro];
+    }
+
+    private void release(TreeNode node, TreeNode keep) {
+        // the sprites of the states thrown away are reused by the next clones
+        if (node == keep) {
+            return;
+        }
+        for (int i = 0; i < node.expanded; i++) {
+            this.release(node.children[i], keep);
+        }
+        if (node.state != null) {
+            node.state.release();
+        }
+    }
+
+    private TreeNode bestChild() {
+        TreeNode best = null;
+        for (int i = 0; i < this.root.expanded; i++) {
+            TreeNode child = this.root.children[i];
+            if (child.state != null && (best == null || child.visits > best.visits)) {
+                best = child;
+            }
+        }
+        if (best == null) {
+            // no time to search at all, just run right
+            best = new TreeNode(this.root, 0, MACROS.length);
+            best.state = this.play(this.root.state, 0);
+        }
+        return best;
+    }
+
+    private void search(MarioTimer timer, float share) {
+        if (this.root.state.getGameStatus() != GameStatus.RUNNING) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + (long) ((timer.getRemainingTime() - SAFETY_MARGIN) * share) * 1000000L;
+        // with a budget timer the search stops on the work done instead, so the same number of ticks is simulated
+        // whatever the load of the machine or the number of cores
+        double budgetLeft = timer.getRemainingBudget() * (1 - share);
+        ArrayList<Future<?>> running = new ArrayList<>();
+        for (int i = 1; i < this.threads; i++) {
+            int worker = i;
+            running.add(POOL.submit(() -> this.work(worker, timer, budgetLeft, deadline)));
+        }
+        this.work(0, timer, budgetLeft, deadline);
+        try {
+            for (Future<?> f : running) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("MCTS worker failed", e.getCause());
+        }
+        this.searchNanos += System.nanoTime() - start;
+    }
+
+    private boolean hasTime(MarioTimer timer, double budgetLeft, long deadline) {
+        if (timer.isBudget()) {
+            return timer.getRemainingBudget() > budgetLeft;
+        }
+        return System.nanoTime() < deadline;
+    }
+
+    private void work(int worker, MarioTimer timer, double budgetLeft, long deadline) {
+        ArrayList<TreeNode> path = new ArrayList<>();
+        int idle = 0;
+        while (this.hasTime(timer, budgetLeft, deadline)) {
+            path.clear();
+            TreeNode leaf = this.select(path);
+            // the budget only goes down when ticks are simulated, stop once the tree has nothing left to simulate
+            boolean simulates = leaf != null && (leaf.state == null || leaf.state.getGameStatus() == GameStatus.RUNNING);
+            idle = simulates ? 0 : idle + 1;
+            if (timer.isBudget() && idle > MAX_IDLE_ITERATIONS) {
+                if (leaf != null) {
+                    for (TreeNode node : path) {
+                        synchronized (node) {
+                            node.virtualLoss -= 1;
+                        }
+                    }
+                }
+                return;
+            }
+            if (leaf == null) {
+                continue;
+            }
+            if (leaf.state == null) {
+                leaf.state = this.play(leaf.parent.state, leaf.macro);
+            }
+            double reward = this.rollout(worker, leaf.state);
+            for (TreeNode node : path) {
+                synchronized (node) {
+                    node.visits += 1;
+                    node.maxReward = Math.max(node.maxReward, reward);
+                    node.virtualLoss -= 1;
+                }
+            }
+            this.iterations.incrementAndGet();
+        }
+    }
+
+    private TreeNode select(ArrayList<TreeNode> path) {
+        TreeNode node = this.root;
+        while (true) {
+            TreeNode next = null;
+            synchronized (node) {
+                node.virtualLoss += 1;
+                path.add(node);
+                if (node.state.getGameStatus() != GameStatus.RUNNING) {
+                    return node;
+                }
+                if (node.expanded < MACROS.length) {
+                    next = new TreeNode(node, node.expanded, MACROS.length);
+                    next.virtualLoss = 1;
+                    path.add(next);
+                    node.children[node.expanded] = next;
+                    node.expanded += 1;
+                    return next;
+                }
+                double bestScore = Double.NEGATIVE_INFINITY;
+                double logVisits = Math.log(node.visits + node.virtualLoss);
+                for (TreeNode child : node.children) {
+                    if (child.state == null) {
+                        // another thread is still simulating it
+                        continue;
+                    }
+                    int n = child.visits + child.virtualLoss;
+                    double score = this.value(child) + EXPLORATION * Math.sqrt(logVisits / n);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        next = child;
+                    }
+                }
+            }
+            if (next == null) {
+                for (TreeNode n : path) {
+                    synchronized (n) {
+                        n.virtualLoss -= 1;
+                    }
+                }
+                return null;
+            }
+            node = next;
+        }
+    }
+
+    private double value(TreeNode node) {
+        // the game is deterministic so the best playout found under a node can really be played, averaging
+        // would mostly measure how easy it is to die with random moves
+        return node.maxReward - node.virtualLoss * VIRTUAL_LOSS;
+    }
+
+    private MarioForwardModel play(MarioForwardModel from, int macro) {
+        MarioForwardModel state = from.clone();
+        state.advance(MACROS[macro], MACRO_TICKS);
+        return state;
+    }
+
+    private double rollout(int worker, MarioForwardModel from) {
+        MarioForwardModel model = this.scratch[worker];
+        if (model == null) {
+            model = from.clone();
+            this.scratch[worker] = model;
+        } else {
+            model.release();
+            from.copyInto(model);
+        }
+        int startMode = model.getMarioMode();
+        int damage = 0;
+        for (int i = 0; i < ROLLOUT_MACROS && model.getGameStatus() == GameStatus.RUNNING; i++) {
+            model.advance(MACROS[this.pickRolloutMacro(this.random[worker])], MACRO_TICKS);
+            if (model.getMarioMode() < startMode) {
+                damage += startMode - model.getMarioMode();
+                startMode = model.getMarioMode();
+            }
+        }
+        return -this.estimateTotalTicks(model, damage) / TICKS_PER_REWARD;
+    }
+
+    private int pickRolloutMacro(Random random) {
+        double total = 0;
+        for (double w : ROLLOUT_WEIGHTS) {
+            total += w;
+        }
+        double pick = random.nextDouble() * total;
+        for (int i = 0; i < ROLLOUT_WEIGHTS.length; i++) {
+            pick -= ROLLOUT_WEIGHTS[i];
+            if (pick < 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private double estimateTotalTicks(MarioForwardModel model, int damage) {
+        // every tick takes 30 units of the remaining time
+        double played = -model.getRemainingTime() / 30.0;
+        if (model.getGameStatus() == GameStatus.WIN) {
+            return played;
+        }
+        double left = model.getMarioTicksToExit();
+        if (left == MarioLevelReachability.UNREACHABLE) {
+            left = (model.getLevelFloatDimensions()[0] - model.getMarioFloatPos()[0]) / 10.9 + UNREACHABLE_PENALTY;
+        }
+        if (model.getGameStatus() == GameStatus.LOSE) {
+            left += DEATH_PENALTY;
+        }
+        return played + left + damage * DAMAGE_PENALTY;
+    }
+
+    /**
+     * @return the number of tree iterations (selection, expansion, rollout, backup) per second over the game
+     */
+    public double getNodesPerSecond() {
+        return this.searchNanos == 0 ? 0 : this.iterations.get() * 1e9 / this.searchNanos;
+    }
+
+    /**
+     * @return the number of nodes in the tree kept for the next tick
+     */
+    public int getTreeSize() {
+        return this.root == null ? 0 : this.root.countNodes();
+    }
+}
@@ -0,0 +1,30 @@
+package agents.mcts;
+
+import engine.core.MarioForwardModel;
+
+public class TreeNode {
+    TreeNode parent;
+    final int macro;
+    // the state after playing the macro action from the parent state, it is never advanced once set
+    volatile MarioForwardModel state;
+    final TreeNode[] children;
+    int expanded = 0;
+
+    int visits = 0;
+    int virtualLoss = 0;
+    double maxReward = Double.NEGATIVE_INFINITY;
+
+    TreeNode(TreeNode parent, int macro, int numMacros) {
+        this.parent = parent;
+        this.macro = macro;
+        this.children = new TreeNode[numMacros];
+    }
+
+    int countNodes() {
+        int count = 1;
+        for (int i = 0; i < this.expanded; i++) {
+            count += this.children[i].countNodes();
+        }
+        return count;
+    }
+}
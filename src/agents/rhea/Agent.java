@@ -0,0 +1,56 @@
+package agents.rhea;
+
+import engine.core.MarioAgent;
+import engine.core.MarioForwardModel;
+import engine.core.MarioTimer;
+
+/**
+ * Rolling horizon evolutionary agent, the population of plans is shifted and kept from one move to the next. The
+ * plans of a generation are played in parallel on one thread per core by default
+ */
+public class Agent implements MarioAgent {
+    private final int threads;
+    private final long seed;
+    private Evolution evolution;
+
+    public Agent() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public Agent(int threads) {
+        this(threads, 0);
+    }
+
+    /**
+     * @param threads the number of threads playing the rollouts
+     * @param seed    seed of the random plans and mutations, every game starts from it again
+     */
+    public Agent(int threads, long seed) {
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    @Override
+    public void initialize(MarioForwardModel model, MarioTimer timer) {
+        this.evolution = new Evolution(this.threads, this.seed);
+        // the ticks to exit field used for the fitness is computed on first use, do it before the game starts
+        model.getMarioTicksToExit();
+    }
+
+    @Override
+    public int getActionMask(MarioForwardModel model, MarioTimer timer) {
+        return this.evolution.optimise(model, timer);
+    }
+
+    /**
+     * @return the number of generations evolved since the start of the game
+     */
+    public long getGenerations() {
+        return this.evolution.getGenerations();
+    }
+
+    @Override
+    public String getAgentName() {
+        return "RHEAAgent";
+    }
+}
@@ -0,0 +1,207 @@
+package agents.rhea;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import engine.core.MarioForwardModel;
+import engine.core.MarioLevelReachability;
+import engine.core.MarioRollouts;
+import engine.core.MarioTimer;
+import engine.helper.GameStatus;
+import engine.helper.MarioActions;
+
+/**
+ * Rolling horizon evolution: a small population of fixed length plans (genes are macro actions held for
+ * GENE_TICKS ticks) evolved against rollouts of the forward model. When the first gene of the best plan has been
+ * played, every plan is shifted one gene to the left and gets a random gene at the end, so the population keeps
+ * what it learned instead of starting again.
+ */
+public class Evolution {
+    static final int GENE_TICKS = 2;
+    static final int GENES = 12;
+    static final int[] MACROS = {
+            mask(MarioActions.RIGHT, MarioActions.SPEED),
+            mask(MarioActions.RIGHT, MarioActions.SPEED, MarioActions.JUMP),
+            mask(MarioActions.RIGHT),
+            mask(MarioActions.RIGHT, MarioActions.JUMP),
+            mask(MarioActions.JUMP),
+            mask(),
+            mask(MarioActions.LEFT),
+            mask(MarioActions.LEFT, MarioActions.JUMP),
+            mask(MarioActions.LEFT, MarioActions.SPEED),
+            mask(MarioActions.LEFT, MarioActions.SPEED, MarioActions.JUMP)
+    };
+
+    private static final int POPULATION = 16;
+    private static final int ELITES = 2;
+    private static final int TOURNAMENT = 3;
+    private static final double MUTATION = 1.0 / GENES;
+    private static final int DEATH_PENALTY = 2000;
+    private static final int DAMAGE_PENALTY = 200;
+    private static final int UNREACHABLE_PENALTY = 500;
+    private static final long SAFETY_MARGIN = 2;
+
+    private final MarioRollouts rollouts;
+    private final Random random;
+
+    private int[][] population = new int[POPULATION][GENES];
+    private int[][] offspring = new int[POPULATION][GENES];
+    private final int[][] sequences = new int[POPULATION][GENES * GENE_TICKS];
+    private final double[] fitness = new double[POPULATION];
+    private final boolean[] elite = new boolean[POPULATION];
+    private MarioRollouts.Results results;
+    private float levelWidth;
+
+    // the state at the end of the gene being played, the population plans from there
+    private MarioForwardModel plannedState;
+    private int currentGene = 0;
+    private int geneTicksLeft = 0;
+
+    private long generations = 0;
+
+    public Evolution(int threads) {
+        this(threads, 0);
+    }
+
+    public Evolution(int threads, long seed) {
+        this.rollouts = new MarioRollouts(threads);
+        this.random = new Random(seed);
+        for (int[] plan : this.population) {
+            for (int g = 0; g < GENES; g++) {
+                plan[g] = this.randomGene();
+            }
+        }
+    }
+
+    private static int mask(MarioActions... buttons) {
+        int mask = 0;
+        for (MarioActions b : buttons) {
+            mask |= 1 << b.getValue();
+        }
+        return mask;
+    }
+
+    private int randomGene() {
+        // half of the random genes go right, it is where the exit is
+        return this.random.nextBoolean() ? this.random.nextInt(4) : this.random.nextInt(MACROS.length);
+    }
+
+    public int optimise(MarioForwardModel model, MarioTimer timer) {
+        if (this.geneTicksLeft == 0) {
+            // the population was evolved for the state the last gene should end in, rank it on the real one
+            this.evaluate(model);
+            int best = this.best();
+            this.currentGene = this.population[best][0];
+            this.shift();
+            this.geneTicksLeft = GENE_TICKS;
+            this.plannedState = model.clone();
+            this.plannedState.setLightweight(true);
+            this.plannedState.advance(MACROS[this.currentGene], GENE_TICKS);
+        }
+        if (this.plannedState.getGameStatus() == GameStatus.RUNNING) {
+            this.evaluate(this.plannedState);
+            while (timer.getRemainingTime() > SAFETY_MARGIN) {
+                this.breed();
+                this.evaluate(this.plannedState);
+                this.generations += 1;
+            }
+        }
+        this.geneTicksLeft -= 1;
+        return MACROS[this.currentGene];
+    }
+
+    private void shift() {
+        for (int[] plan : this.population) {
+            System.arraycopy(plan, 1, plan, 0, GENES - 1);
+            plan[GENES - 1] = this.randomGene();
+        }
+    }
+
+    private void evaluate(MarioForwardModel root) {
+        for (int i = 0; i < POPULATION; i++) {
+            int[] plan = this.population[i];
+            int[] sequence = this.sequences[i];
+            for (int t = 0; t < sequence.length; t++) {
+                sequence[t] = MACROS[plan[t / GENE_TICKS]];
+            }
+        }
+        this.levelWidth = root.getLevelFloatDimensions()[0];
+        this.results = this.rollouts.evaluate(root, this.sequences, this.results);
+        for (int i = 0; i < POPULATION; i++) {
+            this.fitness[i] = this.fitness(i);
+        }
+    }
+
+    private double fitness(int i) {
+        // minus the ticks the whole plan plus the rest of the level would take
+        double ticks = this.results.getTicks(i);
+        if (this.results.getStatus(i) == GameStatus.WIN) {
+            return -ticks;
+        }
+        double left = this.results.getTicksToExit(i);
+        if (left == MarioLevelReachability.UNREACHABLE) {
+            left = (this.levelWidth - this.results.getFinalX(i)) / 10.9 + UNREACHABLE_PENALTY;
+        }
+        if (this.results.getStatus(i) == GameStatus.LOSE) {
+            left += DEATH_PENALTY;
+        }
+        return -(ticks + left + this.results.getDamage(i) * DAMAGE_PENALTY);
+    }
+
+    private int best() {
+        int best = 0;
+        for (int i = 1; i < POPULATION; i++) {
+            if (this.fitness[i] > this.fitness[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private void breed() {
+        // keep the best plans as they are
+        Arrays.fill(this.elite, false);
+        for (int e = 0; e < ELITES; e++) {
+            int best = -1;
+            for (int i = 0; i < POPULATION; i++) {
+                if (!this.elite[i] && (best < 0 || this.fitness[i] > this.fitness[best])) {
+                    best = i;
+                }
+            }
+            this.elite[best] = true;
+            System.arraycopy(this.population[best], 0, this.offspring[e], 0, GENES);
+        }
+        for (int i = ELITES; i < POPULATION; i++) {
+            int[] first = this.population[this.tournament()];
+            int[] second = this.population[this.tournament()];
+            int[] child = this.offspring[i];
+            for (int g = 0; g < GENES; g++) {
+                child[g] = this.random.nextBoolean() ? first[g] : second[g];
+                if (this.random.nextDouble() < MUTATION) {
+                    child[g] = this.randomGene();
+                }
+            }
+        }
+        int[][] swap = this.population;
+        this.population = this.offspring;
+        this.offspring = swap;
+    }
+
+    private int tournament() {
+        int best = this.random.nextInt(POPULATION);
+        for (int i = 1; i < TOURNAMENT; i++) {
+            int other = this.random.nextInt(POPULATION);
+            if (this.fitness[other] > this.fitness[best]) {
+                best = other;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the number of generations evolved since the start of the game
+     */
+    public long getGenerations() {
+        return this.generations;
+    }
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 
 import engine.core.MarioForwardModel;
 import engine.core.MarioTimer;
+import engine.core.MarioTranspositionTable;
 import engine.helper.GameStatus;
 
 public class AStarTree {
@@ -12,6 +13,9 @@ public class AStarTree {
     float currentSearchStartingMarioXPos;
     ArrayList<SearchNode> posPool;
     ArrayList<int[]> visitedStates = new ArrayList<int[]>();
+    // states expanded by the search, the value is the id of the search so it doesn't need clearing
+    MarioTranspositionTable expandedStates = new MarioTranspositionTable(1 << 14);
+    long searchId = 0;
     private boolean requireReplanning = false;
 
     private ArrayList<boolean[]> currentActionPlan;
@@ -44,6 +48,9 @@ public class AStarTree {
                 // current item is not as good as anticipated. put it back in pool and look for best again
                 current.remainingTimeEstimated = realRemainingTime;
                 posPool.add(current);
+            } else if (!expandedStates.putIfDifferent(current.sceneSnapshot.getStateHash(), searchId)) {
+                // the exact same state was already reached by other actions in the same number of ticks
+                continue;
             } else {
                 currentGood = true;
                 visited((int) current.sceneSnapshot.getMarioFloatPos()[0], (int) current.sceneSnapshot.getMarioFloatPos()[1], current.timeElapsed);
@@ -70,6 +77,7 @@ public class AStarTree {
 
         posPool = new ArrayList<SearchNode>();
         visitedStates.clear();
+        searchId++;
         posPool.addAll(startPos.generateChildren());
         currentSearchStartingMarioXPos = model.getMarioFloatPos()[0];
 
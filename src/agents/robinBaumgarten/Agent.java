@@ -16,6 +16,8 @@ public class Agent implements MarioAgent {
     public void initialize(MarioForwardModel model, MarioTimer timer) {
         this.action = new boolean[MarioActions.numberOfActions()];
         this.tree = new AStarTree();
+        // the ticks to exit field used by the search heuristic is computed on first use, do it before the game starts
+        model.getMarioTicksToExit();
     }
 
     @Override
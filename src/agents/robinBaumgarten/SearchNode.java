@@ -3,6 +3,7 @@ package agents.robinBaumgarten;
 import java.util.ArrayList;
 
 import engine.core.MarioForwardModel;
+import engine.core.MarioLevelReachability;
 import engine.helper.GameStatus;
 
 public class SearchNode {
@@ -19,8 +20,17 @@ public class SearchNode {
     boolean[] action;
     int repetitions = 1;
 
-    public float calcRemainingTime(float marioX, float marioXA) {
-        return (100000 - (maxForwardMovement(marioXA, 1000) + marioX)) / Helper.maxMarioSpeed - 1000;
+    public float calcRemainingTime(MarioForwardModel model, float marioX, float marioY, float marioXA) {
+        // ticks from the tile mario is in to the exit, walls and gaps included, moved to his exact x assuming the
+        // way goes on to the right, minus what his current speed gains over starting from standstill
+        int ticksToExit = model.getTicksToExit(marioX, marioY);
+        if (ticksToExit == MarioLevelReachability.UNREACHABLE) {
+            // no known way to the exit from here, fall back to the plain distance, it is always worse than a known way
+            return (100000 - (maxForwardMovement(marioXA, 1000) + marioX)) / Helper.maxMarioSpeed - 1000;
+        }
+        float tileOffset = marioX - ((int) (marioX / 16) * 16 + 8);
+        return ticksToExit - (tileOffset + maxForwardMovement(marioXA, 1000) - maxForwardMovement(0, 1000))
+                / Helper.maxMarioSpeed + 1000;
     }
 
     public float getRemainingTime() {
@@ -33,8 +43,8 @@ public class SearchNode {
     public float estimateRemainingTimeChild(boolean[] action, int repetitions) {
         float[] childbehaviorDistanceAndSpeed = Helper.estimateMaximumForwardMovement(
                 this.sceneSnapshot.getMarioFloatVelocity()[0], action, repetitions);
-        return calcRemainingTime(this.sceneSnapshot.getMarioFloatPos()[0] + childbehaviorDistanceAndSpeed[0],
-                childbehaviorDistanceAndSpeed[1]);
+        return calcRemainingTime(this.sceneSnapshot, this.sceneSnapshot.getMarioFloatPos()[0] + childbehaviorDistanceAndSpeed[0],
+                this.sceneSnapshot.getMarioFloatPos()[1], childbehaviorDistanceAndSpeed[1]);
     }
 
     public SearchNode(boolean[] action, int repetitions, SearchNode parent) {
@@ -54,18 +64,19 @@ public class SearchNode {
     public void initializeRoot(MarioForwardModel model) {
         if (this.parentPos == null) {
             this.sceneSnapshot = model.clone();
-            this.remainingTimeEstimated = calcRemainingTime(model.getMarioFloatPos()[0], 0);
+            // the search never reads the events, all the simulated children inherit this
+            this.sceneSnapshot.setLightweight(true);
+            this.remainingTimeEstimated = calcRemainingTime(model, model.getMarioFloatPos()[0], model.getMarioFloatPos()[1], 0);
         }
     }
 
     public float simulatePos() {
         this.sceneSnapshot = parentPos.sceneSnapshot.clone();
-        for (int i = 0; i < repetitions; i++) {
-            this.sceneSnapshot.advance(action);
-        }
+        this.sceneSnapshot.advance(action, repetitions);
         int marioDamage = Helper.getMarioDamage(this.sceneSnapshot, this.parentPos.sceneSnapshot);
         remainingTime =
-                calcRemainingTime(this.sceneSnapshot.getMarioFloatPos()[0], this.sceneSnapshot.getMarioFloatVelocity()[0]) +
+                calcRemainingTime(this.sceneSnapshot, this.sceneSnapshot.getMarioFloatPos()[0],
+                        this.sceneSnapshot.getMarioFloatPos()[1], this.sceneSnapshot.getMarioFloatVelocity()[0]) +
                         marioDamage * (1000000 - 100 * distanceFromOrigin);
         if (isInVisitedList)
             remainingTime += Helper.visitedListPenalty;
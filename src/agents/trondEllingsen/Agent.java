@@ -29,6 +29,7 @@ public class Agent implements MarioAgent {
     private int jumpCount = 0, jumpSize = -1;
     private float prevY = 0;
     private boolean[] action;
+    private float[] enemies = new float[3 * 16];
 
     @Override
     public void initialize(MarioForwardModel model, MarioTimer timer) {
@@ -55,9 +56,14 @@ public class Agent implements MarioAgent {
     }
 
     private boolean enemyInRange(MarioForwardModel e, Rectangle r) {
-        for (int i = 0; i < e.getEnemiesFloatPos().length; i += 3) {
-            if (r.contains(e.getEnemiesFloatPos()[i + 1] - e.getMarioFloatPos()[0],
-                    e.getMarioFloatPos()[1] - e.getEnemiesFloatPos()[i + 2])) {
+        int count = e.getEnemiesFloatPos(this.enemies);
+        if (3 * count > this.enemies.length) {
+            this.enemies = new float[6 * count];
+            e.getEnemiesFloatPos(this.enemies);
+        }
+        float[] marioPos = e.getMarioFloatPos();
+        for (int i = 0; i < 3 * count; i += 3) {
+            if (r.contains(this.enemies[i + 1] - marioPos[0], marioPos[1] - this.enemies[i + 2])) {
                 return true;
             }
         }
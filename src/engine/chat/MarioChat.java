@@ -12,6 +12,8 @@ import java.awt.*;
 import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 import java.time.LocalTime;
@@ -24,6 +26,8 @@ import java.nio.file.Paths;
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
 import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
 import javax.swing.text.StyleContext;
@@ -41,8 +45,16 @@ public class MarioChat extends JComponent {
 	private MarioGame game;
 	public MarioChatWorker chatWorker;
 	
+	//Messages waiting to be written to the document, filled from any thread and drained on the EDT
+	private ConcurrentLinkedQueue<PendingMessage> pendingMessages = new ConcurrentLinkedQueue<PendingMessage>();
+	//Text attributes per color, only touched on the EDT
+	private HashMap<Color, AttributeSet> styleCache = new HashMap<Color, AttributeSet>();
+	private Timer flushTimer;
+	
 	private static final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("HH:mm:ss");
 	private static final int chatWindowWidth = 400;
+	private static final int flushInterval = 33; //ms, roughly one frame at 30 fps
+	private static final int maxDocumentLength = 20000; //characters kept in the chat before old lines are trimmed
 	private static final Pattern dateTimePattern = Pattern.compile("\\d\\d:\\d\\d:\\d\\d");
 	
 	public MarioChat(MarioGame game, float scale) {
@@ -109,10 +121,37 @@ public class MarioChat extends JComponent {
 				.addContainerGap())
 		);
 		
+		this.flushTimer = new Timer(flushInterval, new java.awt.event.ActionListener() {
+			public void actionPerformed(java.awt.event.ActionEvent evt) {
+				flushPendingMessages();
+			}
+		});
+		this.flushTimer.start();
+		
 		this.chatWorker = new MarioChatWorker(this);
 		this.chatWorker.start();
 	}
 	
+	/**
+	 * Stops the flush timer when the chat leaves the window (e.g. the window is disposed), so the timer
+	 * doesn't keep running and holding on to the chat.
+	 */
+	@Override
+	public void removeNotify() {
+		if(this.flushTimer != null) {
+			this.flushTimer.stop();
+		}
+		super.removeNotify();
+	}
+	
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		if(this.flushTimer != null) {
+			this.flushTimer.start();
+		}
+	}
+	
 	public void addMessageFromAgent(String message) {
 		this.addMessage("Mario: " + message, Color.BLUE);
 	}
@@ -127,29 +166,65 @@ public class MarioChat extends JComponent {
 		txtInput.setText("");
 	}
 	
-	private void addMessageWithTimeStamp(String message, Color color) {
-		var timeStamp = java.time.LocalTime.now();
-		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss");
-		var fullMessage = "\n" + timeStamp.format(formatter) + " - " + message;
-		this.addMessage(fullMessage, color);
+	/**
+	 * Queues a message with the current time stamp for the chat window. Safe to call from any thread; the text
+	 * is written to the document in batches by flushPendingMessages on the EDT.
+	 * 
+	 * @param message		The text of the message
+	 * @param color			The color the message is shown in
+	 */
+	private void addMessage(String message, Color color) {
+		var fullMessage = "\n" + java.time.LocalTime.now().format(dtf) + " - " + message;
+		this.pendingMessages.add(new PendingMessage(fullMessage, color));
 	}
 	
-	//TODO: Change most addMessage calls to addMessageWithTimeStamp. Remove the time stamp insert from addMessage
-	private void addMessage(String message, Color color) {
-		var timeStamp = java.time.LocalTime.now();
-		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss");
-		var fullMessage = "\n" + timeStamp.format(formatter) + " - " + message;
-		
-		StyleContext sc = StyleContext.getDefaultStyleContext();
-        AttributeSet aset = sc.addAttribute(SimpleAttributeSet.EMPTY, StyleConstants.Foreground, color);
-
-        aset = sc.addAttribute(aset, StyleConstants.FontFamily, "Lucida Console");
-        aset = sc.addAttribute(aset, StyleConstants.Alignment, StyleConstants.ALIGN_LEFT);
-
-        int len = tPane.getDocument().getLength();
-        tPane.setCaretPosition(len);
-        tPane.setCharacterAttributes(aset, false);
-        tPane.replaceSelection(fullMessage);
+	/**
+	 * Writes all queued messages to the document at once, merging consecutive messages of the same color
+	 * into a single insert, and trims the oldest lines if the document grows past maxDocumentLength.
+	 * Must be called on the EDT.
+	 */
+	private void flushPendingMessages() {
+		if(this.pendingMessages.isEmpty()) {
+			return;
+		}
+		Document document = tPane.getDocument();
+		StringBuilder run = new StringBuilder();
+		Color runColor = null;
+		try {
+			PendingMessage m;
+			while((m = this.pendingMessages.poll()) != null) {
+				if(runColor != null && !runColor.equals(m.color)) {
+					document.insertString(document.getLength(), run.toString(), this.getStyle(runColor));
+					run.setLength(0);
+				}
+				runColor = m.color;
+				run.append(m.text);
+			}
+			document.insertString(document.getLength(), run.toString(), this.getStyle(runColor));
+			
+			int overflow = document.getLength() - maxDocumentLength;
+			if(overflow > 0) {
+				//Cut at a line break so that no half messages are left at the top
+				String text = document.getText(overflow, document.getLength() - overflow);
+				int lineBreak = text.indexOf('\n');
+				document.remove(0, lineBreak < 0 ? overflow : overflow + lineBreak);
+			}
+		} catch(BadLocationException e) {
+			e.printStackTrace();
+		}
+		tPane.setCaretPosition(document.getLength());
+	}
+	
+	private AttributeSet getStyle(Color color) {
+		AttributeSet aset = this.styleCache.get(color);
+		if(aset == null) {
+			StyleContext sc = StyleContext.getDefaultStyleContext();
+			aset = sc.addAttribute(SimpleAttributeSet.EMPTY, StyleConstants.Foreground, color);
+			aset = sc.addAttribute(aset, StyleConstants.FontFamily, "Lucida Console");
+			aset = sc.addAttribute(aset, StyleConstants.Alignment, StyleConstants.ALIGN_LEFT);
+			this.styleCache.put(color, aset);
+		}
+		return aset;
 	}
 	
 	private void parseUserMessageToCommand(String message) {
@@ -261,6 +336,16 @@ public class MarioChat extends JComponent {
 		}
 	}
 	
+	private static class PendingMessage {
+		public String text;
+		public Color color;
+		
+		public PendingMessage(String text, Color color) {
+			this.text = text;
+			this.color = color;
+		}
+	}
+	
 	/*
 	public static String getLevel(String filepath) {
         String content = "";
@@ -1,7 +1,9 @@
 package engine.core;
 
+import engine.helper.MarioActions;
+
 /**
- * Interface for agents that want to play in the framework
+ * Interface for agents that want to play in the framework, agents implement either getActions or getActionMask
  *
  * @author AhmedKhalifa
  */
@@ -10,6 +12,8 @@ public interface MarioAgent {
      * initialize and prepare the agent before the game starts
      *
      * @param model a forward model object so the agent can simulate or initialize some parameters based on it.
+     *              It is a view of the live game that is only valid during this call, clone it to keep it or to
+     *              advance it later.
      * @param timer amount of time before the agent has to return
      */
     void initialize(MarioForwardModel model, MarioTimer timer);
@@ -17,11 +21,32 @@ public interface MarioAgent {
     /**
      * get mario current actions
      *
-     * @param model a forward model object so the agent can simulate the future.
+     * @param model a forward model object so the agent can simulate the future. It is a view of the live game
+     *              that is only valid during this call, clone it to keep it or to advance it later.
      * @param timer amount of time before the agent has to return the actions.
      * @return an array of the state of the buttons on the controller
+     * @throws UnsupportedOperationException if the agent implements neither getActions nor getActionMask
      */
-    boolean[] getActions(MarioForwardModel model, MarioTimer timer);
+    default boolean[] getActions(MarioForwardModel model, MarioTimer timer) {
+        // the two defaults call each other, stop here instead of overflowing the stack
+        if (!overridesActionMask(this.getClass())) {
+            throw new UnsupportedOperationException(this.getClass().getName()
+                    + " must implement getActions or getActionMask");
+        }
+        return MarioActions.fromMask(this.getActionMask(model, timer), new boolean[MarioActions.numberOfActions()]);
+    }
+
+    /**
+     * get mario current actions packed in an int, this is what the game asks for
+     *
+     * @param model a forward model object so the agent can simulate the future. It is a view of the live game
+     *              that is only valid during this call, clone it to keep it or to advance it later.
+     * @param timer amount of time before the agent has to return the actions.
+     * @return the state of the buttons on the controller packed with MarioActions.toMask
+     */
+    default int getActionMask(MarioForwardModel model, MarioTimer timer) {
+        return MarioActions.toMask(this.getActions(model, timer));
+    }
 
     /**
      * Return the name of the agent that will be displayed in debug purposes
@@ -29,4 +54,13 @@ public interface MarioAgent {
      * @return
      */
     String getAgentName();
+
+    private static boolean overridesActionMask(Class<?> agentClass) {
+        try {
+            return agentClass.getMethod("getActionMask", MarioForwardModel.class, MarioTimer.class)
+                    .getDeclaringClass() != MarioAgent.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
 }
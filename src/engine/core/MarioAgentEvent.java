@@ -1,5 +1,7 @@
 package engine.core;
 
+import engine.helper.MarioActions;
+
 public class MarioAgentEvent {
     private boolean[] actions;
     private float marioX;
@@ -21,6 +23,13 @@ public class MarioAgentEvent {
         return this.actions;
     }
 
+    /**
+     * @return the actions packed with MarioActions.toMask
+     */
+    public int getActionMask() {
+        return MarioActions.toMask(this.actions);
+    }
+
     public float getMarioX() {
         return this.marioX;
     }
@@ -0,0 +1,116 @@
+package engine.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import engine.helper.MarioActions;
+
+/**
+ * The actions of the agent in every tick of a game stored in parallel primitive arrays, with the buttons packed
+ * with MarioActions.toMask, so recording a game doesn't create an event object and a button array every tick.
+ * Event i is read with the getters that take an index (the same values as the getters of MarioAgentEvent), get(i)
+ * and toList create MarioAgentEvent objects for code that wants them.
+ */
+public class MarioAgentEventBuffer {
+    private int size = 0;
+    private int[] actionMask = new int[64];
+    private float[] marioX = new float[64];
+    private float[] marioY = new float[64];
+    private int[] marioState = new int[64];
+    private boolean[] marioOnGround = new boolean[64];
+    private int[] time = new int[64];
+
+    private void grow(int capacity) {
+        if (capacity <= this.actionMask.length) {
+            return;
+        }
+        capacity = Math.max(capacity, this.actionMask.length * 2);
+        this.actionMask = Arrays.copyOf(this.actionMask, capacity);
+        this.marioX = Arrays.copyOf(this.marioX, capacity);
+        this.marioY = Arrays.copyOf(this.marioY, capacity);
+        this.marioState = Arrays.copyOf(this.marioState, capacity);
+        this.marioOnGround = Arrays.copyOf(this.marioOnGround, capacity);
+        this.time = Arrays.copyOf(this.time, capacity);
+    }
+
+    /**
+     * Add the actions of a tick at the end of the buffer
+     *
+     * @param actionMask the buttons packed with MarioActions.toMask
+     * @param x          mario x position after the tick
+     * @param y          mario y position after the tick
+     * @param state      mario mode after the tick
+     * @param onGround   if mario is on the ground after the tick
+     * @param tick       the tick
+     */
+    public void add(int actionMask, float x, float y, int state, boolean onGround, int tick) {
+        this.grow(this.size + 1);
+        this.actionMask[this.size] = actionMask;
+        this.marioX[this.size] = x;
+        this.marioY[this.size] = y;
+        this.marioState[this.size] = state;
+        this.marioOnGround[this.size] = onGround;
+        this.time[this.size] = tick;
+        this.size += 1;
+    }
+
+    /**
+     * Remove all the events, the arrays are kept for the next ones
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int getActionMask(int i) {
+        return this.actionMask[i];
+    }
+
+    public float getMarioX(int i) {
+        return this.marioX[i];
+    }
+
+    public float getMarioY(int i) {
+        return this.marioY[i];
+    }
+
+    public int getMarioState(int i) {
+        return this.marioState[i];
+    }
+
+    public boolean getMarioOnGround(int i) {
+        return this.marioOnGround[i];
+    }
+
+    public int getTime(int i) {
+        return this.time[i];
+    }
+
+    /**
+     * Create the event object for one tick of the buffer
+     *
+     * @param i the index of the event
+     * @return a new MarioAgentEvent with the same values
+     */
+    public MarioAgentEvent get(int i) {
+        boolean[] actions = MarioActions.fromMask(this.actionMask[i], new boolean[MarioActions.numberOfActions()]);
+        return new MarioAgentEvent(actions, this.marioX[i], this.marioY[i], this.marioState[i],
+                this.marioOnGround[i], this.time[i]);
+    }
+
+    /**
+     * Create the event objects for all the ticks of the buffer
+     *
+     * @return a new list with a MarioAgentEvent for every tick in order
+     */
+    public ArrayList<MarioAgentEvent> toList() {
+        ArrayList<MarioAgentEvent> events = new ArrayList<>(this.size);
+        for (int i = 0; i < this.size; i++) {
+            events.add(this.get(i));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,24 @@
+package engine.core;
+
+/**
+ * Condition checked after every game tick that ends the game early, used to stop evaluating levels or agents
+ * as soon as the outcome is obvious instead of waiting for the timer to run out.
+ */
+public interface MarioEarlyExit {
+    /**
+     * Called before the first tick of every game, conditions that keep state between ticks must reset it here
+     * since the same condition is reused by all the games of a MarioGame
+     *
+     * @param model a read only view of the new game, it must not be advanced
+     */
+    default void start(MarioForwardModel model) {
+    }
+
+    /**
+     * Check if the game should be stopped now
+     *
+     * @param model a read only view of the running game, it must not be advanced
+     * @return true to end the game with a TIME_OUT status
+     */
+    boolean shouldExit(MarioForwardModel model);
+}
@@ -70,10 +70,13 @@ public class MarioEvent {
         return this.time;
     }
 
+    boolean matches(EventType eventType, int eventParam) {
+        return this.eventType == eventType && (this.eventParam == 0 || this.eventParam == eventParam);
+    }
+
     @Override
     public boolean equals(Object obj) {
         MarioEvent otherEvent = (MarioEvent) obj;
-        return this.eventType == otherEvent.eventType &&
-                (this.eventParam == 0 || this.eventParam == otherEvent.eventParam);
+        return this.matches(otherEvent.eventType, otherEvent.eventParam);
     }
 }
@@ -0,0 +1,139 @@
+package engine.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import engine.helper.EventType;
+
+/**
+ * A list of game events stored in parallel primitive arrays instead of MarioEvent objects, so worlds that are
+ * cloned and simulated over and over record their events without allocating. Event i is read with the getters
+ * that take an index (the same values as the getters of MarioEvent), get(i) and toList create MarioEvent objects
+ * for code that wants them.
+ */
+public class MarioEventBuffer {
+    private static final EventType[] TYPES = new EventType[EventType.values().length + 1];
+
+    static {
+        for (EventType t : EventType.values()) {
+            TYPES[t.getValue()] = t;
+        }
+    }
+
+    private int size = 0;
+    private int[] type = new int[8];
+    private int[] param = new int[8];
+    private float[] marioX = new float[8];
+    private float[] marioY = new float[8];
+    private int[] marioState = new int[8];
+    private int[] time = new int[8];
+
+    private void grow(int capacity) {
+        if (capacity <= this.type.length) {
+            return;
+        }
+        capacity = Math.max(capacity, this.type.length * 2);
+        this.type = Arrays.copyOf(this.type, capacity);
+        this.param = Arrays.copyOf(this.param, capacity);
+        this.marioX = Arrays.copyOf(this.marioX, capacity);
+        this.marioY = Arrays.copyOf(this.marioY, capacity);
+        this.marioState = Arrays.copyOf(this.marioState, capacity);
+        this.time = Arrays.copyOf(this.time, capacity);
+    }
+
+    /**
+     * Add an event at the end of the buffer
+     *
+     * @param eventType  the event type value (EventType.getValue)
+     * @param eventParam the event parameter
+     * @param x          mario x position when it happened
+     * @param y          mario y position when it happened
+     * @param state      mario mode when it happened
+     * @param tick       the tick it happened on
+     */
+    public void add(int eventType, int eventParam, float x, float y, int state, int tick) {
+        this.grow(this.size + 1);
+        this.type[this.size] = eventType;
+        this.param[this.size] = eventParam;
+        this.marioX[this.size] = x;
+        this.marioY[this.size] = y;
+        this.marioState[this.size] = state;
+        this.time[this.size] = tick;
+        this.size += 1;
+    }
+
+    /**
+     * Add all the events of another buffer at the end of this one
+     *
+     * @param events the events to add
+     */
+    public void addAll(MarioEventBuffer events) {
+        this.grow(this.size + events.size);
+        System.arraycopy(events.type, 0, this.type, this.size, events.size);
+        System.arraycopy(events.param, 0, this.param, this.size, events.size);
+        System.arraycopy(events.marioX, 0, this.marioX, this.size, events.size);
+        System.arraycopy(events.marioY, 0, this.marioY, this.size, events.size);
+        System.arraycopy(events.marioState, 0, this.marioState, this.size, events.size);
+        System.arraycopy(events.time, 0, this.time, this.size, events.size);
+        this.size += events.size;
+    }
+
+    /**
+     * Remove all the events, the arrays are kept for the next ones
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int getEventType(int i) {
+        return this.type[i];
+    }
+
+    public int getEventParam(int i) {
+        return this.param[i];
+    }
+
+    public float getMarioX(int i) {
+        return this.marioX[i];
+    }
+
+    public float getMarioY(int i) {
+        return this.marioY[i];
+    }
+
+    public int getMarioState(int i) {
+        return this.marioState[i];
+    }
+
+    public int getTime(int i) {
+        return this.time[i];
+    }
+
+    /**
+     * Create the event object for one event of the buffer
+     *
+     * @param i the index of the event
+     * @return a new MarioEvent with the same values
+     */
+    public MarioEvent get(int i) {
+        return new MarioEvent(TYPES[this.type[i]], this.param[i], this.marioX[i], this.marioY[i],
+                this.marioState[i], this.time[i]);
+    }
+
+    /**
+     * Create the event objects for all the events of the buffer
+     *
+     * @return a new list with a MarioEvent for every event in order
+     */
+    public ArrayList<MarioEvent> toList() {
+        ArrayList<MarioEvent> events = new ArrayList<>(this.size);
+        for (int i = 0; i < this.size; i++) {
+            events.add(this.get(i));
+        }
+        return events;
+    }
+}
@@ -1,9 +1,8 @@
 package engine.core;
 
-import java.util.ArrayList;
-
 import engine.helper.EventType;
 import engine.helper.GameStatus;
+import engine.helper.MarioActions;
 import engine.helper.SpriteType;
 
 public class MarioForwardModel {
@@ -206,6 +205,11 @@ public class MarioForwardModel {
     public final int obsGridHeight = MarioGame.tileHeight;
 
     private MarioWorld world;
+    // true while world is the live world of the game, it is cloned before anything changes it
+    private boolean shared = false;
+    // the budget timer of the agent decision this model comes from, it counts the ticks and copies of the model
+    // and of every copy made from it
+    private MarioTimer budget = null;
 
     // stats
     private int fallKill;
@@ -226,13 +230,77 @@ public class MarioForwardModel {
         this.world = world;
     }
 
+    /**
+     * Create a forward model that reads the live world of the game without copying it. The world is only
+     * cloned the first time the forward model would change it (advance, setLightweight or being the target
+     * of copyInto), so agents that only read observations don't cost a world copy every tick. The view follows
+     * the game so it is only valid until the agent call it was given to returns.
+     *
+     * @param world the live world of the game, it is never changed through the forward model
+     * @return a forward model over that world
+     */
+    static MarioForwardModel view(MarioWorld world) {
+        MarioForwardModel model = new MarioForwardModel(world);
+        model.shared = true;
+        return model;
+    }
+
+    /**
+     * Give a view to an agent with a budget timer, the view and all the models copied from it count their work
+     *
+     * @param timer the timer the agent gets with the model
+     */
+    void setBudget(MarioTimer timer) {
+        this.budget = timer != null && timer.isBudget() ? timer : null;
+    }
+
+    private void detach() {
+        if (this.shared) {
+            this.world = this.world.clone();
+            this.shared = false;
+            if (this.budget != null) {
+                this.budget.countClone();
+            }
+        }
+    }
+
     /**
      * Create a clone from the current forward model state
      *
      * @return a clone from the current forward model state
      */
     public MarioForwardModel clone() {
+        if (this.budget != null) {
+            this.budget.countClone();
+        }
         MarioForwardModel model = new MarioForwardModel(this.world.clone());
+        this.copyStatsInto(model);
+        if (this.isLightweight()) {
+            model.setLightweight(true);
+        }
+        return model;
+    }
+
+    /**
+     * Make another forward model a copy of the current state, reusing the memory of its world. Agents that
+     * simulate from the same state again and again can keep one model around instead of cloning every time
+     *
+     * @param model the forward model that will be overwritten, it keeps its own lightweight mode
+     */
+    public void copyInto(MarioForwardModel model) {
+        if (this.budget != null) {
+            this.budget.countClone();
+        }
+        if (model.shared) {
+            model.world = this.world.clone();
+            model.shared = false;
+        } else {
+            this.world.copyInto(model.world);
+        }
+        this.copyStatsInto(model);
+    }
+
+    private void copyStatsInto(MarioForwardModel model) {
         model.fallKill = this.fallKill;
         model.stompKill = this.stompKill;
         model.fireKill = this.fireKill;
@@ -240,7 +308,40 @@ public class MarioForwardModel {
         model.mushrooms = this.mushrooms;
         model.flowers = this.flowers;
         model.breakBlock = this.breakBlock;
-        return model;
+        model.budget = this.budget;
+    }
+
+    /**
+     * Give the sprites of this forward model back to be reused by the copies made later on the same thread (clone,
+     * copyInto), for agents that throw away a lot of forward models like search trees. The model can't be used
+     * after that unless another model is copied into it. Views of the game world are left as they are
+     */
+    public void release() {
+        if (!this.shared) {
+            this.world.release();
+        }
+    }
+
+    /**
+     * Switch the lightweight simulation mode on or off. In lightweight mode the world doesn't create an event
+     * object for every event, the kill and collection counters of the forward model are updated directly. All
+     * the getters work the same, it only matters for code that reads the events of the world. Clones of a
+     * lightweight forward model are lightweight too.
+     *
+     * @param lightweight true to simulate without event objects
+     */
+    public void setLightweight(boolean lightweight) {
+        this.detach();
+        this.world.eventCounter = lightweight ? this : null;
+    }
+
+    /**
+     * Check if the forward model is in lightweight simulation mode (see setLightweight)
+     *
+     * @return true if the world doesn't create event objects
+     */
+    public boolean isLightweight() {
+        return this.world.eventCounter != null;
     }
 
     /**
@@ -249,33 +350,94 @@ public class MarioForwardModel {
      * @param actions a list of all the button states
      */
     public void advance(boolean[] actions) {
-        this.world.update(actions);
-        for (MarioEvent e : this.world.lastFrameEvents) {
-            if (e.getEventType() == EventType.FIRE_KILL.getValue()) {
-                this.fireKill += 1;
-            }
-            if (e.getEventType() == EventType.STOMP_KILL.getValue()) {
-                this.stompKill += 1;
-            }
-            if (e.getEventType() == EventType.FALL_KILL.getValue()) {
-                this.fallKill += 1;
-            }
-            if (e.getEventType() == EventType.SHELL_KILL.getValue()) {
-                this.shellKill += 1;
-            }
-            if (e.getEventType() == EventType.COLLECT.getValue()) {
-                if (e.getEventParam() == SpriteType.FIRE_FLOWER.getValue()) {
-                    this.flowers += 1;
-                }
-                if (e.getEventParam() == SpriteType.MUSHROOM.getValue()) {
-                    this.mushrooms += 1;
-                }
+        this.advance(MarioActions.toMask(actions));
+    }
+
+    /**
+     * Advance the forward model using packed buttons, the same as advance with a button array without creating
+     * one
+     *
+     * @param actionMask the button states packed with MarioActions.toMask
+     */
+    public void advance(int actionMask) {
+        this.detach();
+        if (this.budget != null) {
+            this.budget.countTick();
+        }
+        this.world.update(actionMask);
+        if (this.isLightweight()) {
+            return;
+        }
+        MarioEventBuffer events = this.world.lastFrameEvents;
+        for (int i = 0; i < events.size(); i++) {
+            this.countEvent(events.getEventType(i), events.getEventParam(i), events.getMarioState(i));
+        }
+    }
+
+    /**
+     * Advance the forward model holding the same buttons for a number of ticks, stops as soon as the game is
+     * not running anymore (mario won, died or the time ran out)
+     *
+     * @param actions a list of all the button states
+     * @param ticks   the number of ticks to hold the buttons for
+     * @return the number of ticks that were actually simulated
+     */
+    public int advance(boolean[] actions, int ticks) {
+        return this.advance(MarioActions.toMask(actions), ticks);
+    }
+
+    /**
+     * Advance the forward model holding the same packed buttons for a number of ticks, stops as soon as the game
+     * is not running anymore (mario won, died or the time ran out)
+     *
+     * @param actionMask the button states packed with MarioActions.toMask
+     * @param ticks      the number of ticks to hold the buttons for
+     * @return the number of ticks that were actually simulated
+     */
+    public int advance(int actionMask, int ticks) {
+        int simulated = 0;
+        while (simulated < ticks && this.world.gameStatus == GameStatus.RUNNING) {
+            this.advance(actionMask);
+            simulated += 1;
+        }
+        return simulated;
+    }
+
+    void countEvent(int eventType, int eventParam, int marioState) {
+        if (eventType == EventType.FIRE_KILL.getValue()) {
+            this.fireKill += 1;
+        }
+        if (eventType == EventType.STOMP_KILL.getValue()) {
+            this.stompKill += 1;
+        }
+        if (eventType == EventType.FALL_KILL.getValue()) {
+            this.fallKill += 1;
+        }
+        if (eventType == EventType.SHELL_KILL.getValue()) {
+            this.shellKill += 1;
+        }
+        if (eventType == EventType.COLLECT.getValue()) {
+            if (eventParam == SpriteType.FIRE_FLOWER.getValue()) {
+                this.flowers += 1;
             }
-            if (e.getEventType() == EventType.BUMP.getValue() && e.getEventParam() == OBS_BRICK
-                    && e.getMarioState() > 0) {
-                this.breakBlock += 1;
+            if (eventParam == SpriteType.MUSHROOM.getValue()) {
+                this.mushrooms += 1;
             }
         }
+        if (eventType == EventType.BUMP.getValue() && eventParam == OBS_BRICK && marioState > 0) {
+            this.breakBlock += 1;
+        }
+    }
+
+    /**
+     * Get a 64 bit hash of the current simulation state, two forward models with the same hash will give the
+     * same result for the same actions, so searches can use it to find states they already simulated (see
+     * MarioTranspositionTable). The kill and collection counters of the forward model are not part of it
+     *
+     * @return the hash of the current state
+     */
+    public long getStateHash() {
+        return this.world.getStateHash();
     }
 
     /**
@@ -332,6 +494,28 @@ public class MarioForwardModel {
         return new float[]{this.world.mario.xa, this.world.mario.ya};
     }
 
+    /**
+     * Get the minimum number of ticks mario needs to get from where he is to the exit, taking the walls, gaps
+     * and jumps of the level into account but not the enemies. Computed for the whole level the first time
+     * it is asked for and shared by all the clones of the forward model
+     *
+     * @return the number of ticks or MarioLevelReachability.UNREACHABLE if mario can't get to the exit from here
+     */
+    public int getMarioTicksToExit() {
+        return this.world.level.reachability.getTicksToExit(this.world.mario.x, this.world.mario.y);
+    }
+
+    /**
+     * Get the minimum number of ticks mario would need to get from some position to the exit, see getMarioTicksToExit
+     *
+     * @param x the x position in pixels
+     * @param y the y position of mario's feet in pixels
+     * @return the number of ticks or MarioLevelReachability.UNREACHABLE if mario can't get to the exit from there
+     */
+    public int getTicksToExit(float x, float y) {
+        return this.world.level.reachability.getTicksToExit(x, y);
+    }
+
     /**
      * If mario can press the jump button while in the air to reach higher areas
      *
@@ -382,16 +566,31 @@ public class MarioForwardModel {
      * position for each enemy sprite
      */
     public float[] getEnemiesFloatPos() {
-        ArrayList<MarioSprite> enemiesAlive = this.world.getEnemies();
-        float[] enemyPos = new float[enemiesAlive.size() * 3];
-        for (int i = 0; i < enemiesAlive.size(); i++) {
-            enemyPos[3 * i] = enemiesAlive.get(i).type.getValue();
-            enemyPos[3 * i + 1] = enemiesAlive.get(i).x;
-            enemyPos[3 * i + 2] = enemiesAlive.get(i).y;
-        }
+        float[] enemyPos = new float[this.world.getEnemyCount() * 3];
+        this.world.fillEnemiesFloatPos(enemyPos);
         return enemyPos;
     }
 
+    /**
+     * Get the enemies like getEnemiesFloatPos but written into an array the caller keeps, so agents that read the
+     * enemies every tick or on every search node don't allocate
+     *
+     * @param buffer the array to write the type, x and y of every enemy in, enemies that don't fit are skipped
+     * @return the number of enemies, if it is more than the buffer holds grow the buffer and call again
+     */
+    public int getEnemiesFloatPos(float[] buffer) {
+        return this.world.fillEnemiesFloatPos(buffer);
+    }
+
+    /**
+     * Get the number of enemies in the game
+     *
+     * @return the number of enemies that getEnemiesFloatPos would return
+     */
+    public int getEnemyCount() {
+        return this.world.getEnemyCount();
+    }
+
     /**
      * get the number of enemies killed in the game
      *
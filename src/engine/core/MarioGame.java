@@ -56,6 +56,11 @@ public class MarioGame {
     private MarioEvent[] killEvents;
 	
 	public MarioAgent newAgent = null;
+
+    /**
+     * conditions that end the game before the timer runs out
+     */
+    private ArrayList<MarioEarlyExit> earlyExits = new ArrayList<>();
 		
     //visualization
     private JFrame window = null;
@@ -63,6 +68,13 @@ public class MarioGame {
     private MarioChat chat = null;
     private MarioAgent agent = null;
     private MarioWorld world = null;
+    // the parsed level of the last game without visuals and the level string and timer it was made from
+    private MarioWorld template = null;
+    private String templateLevel = null;
+    private int templateTimer = 0;
+    // forward model ticks and copies the agent may use for every decision, both 0 to use wall clock time
+    private long agentTickBudget = 0;
+    private long agentCloneBudget = 0;
 
     /**
      * Create a mario game to be played
@@ -80,6 +92,48 @@ public class MarioGame {
         this.killEvents = killEvents;
     }
 
+    /**
+     * Add a condition that is checked after every tick and ends the game with a TIME_OUT status when it is met.
+     * Conditions keep their state, so use new ones for every game.
+     *
+     * @param earlyExit the condition to be checked
+     */
+    public void addEarlyExit(MarioEarlyExit earlyExit) {
+        this.earlyExits.add(earlyExit);
+    }
+
+    /**
+     * Give the agent a budget of forward model work for every decision instead of MarioGame.maxTime of wall clock
+     * time. The timer the agent gets counts the ticks simulated (advance) and the copies made (clone, copyInto) with
+     * the forward model it gets and every model copied from it, and reports the time running out as the budget is
+     * spent, so the result of an agent that stops on the timer doesn't depend on the machine it runs on.
+     *
+     * @param ticks  forward model ticks allowed for every decision, 0 for no limit
+     * @param clones forward model copies allowed for every decision, 0 for no limit
+     *               (both 0 goes back to wall clock time)
+     */
+    public void setAgentBudget(long ticks, long clones) {
+        this.agentTickBudget = Math.max(0, ticks);
+        this.agentCloneBudget = Math.max(0, clones);
+    }
+
+    private MarioTimer newAgentTimer(MarioTimer last) {
+        if (this.agentTickBudget > 0 || this.agentCloneBudget > 0) {
+            if (last == null || !last.isBudget()) {
+                return MarioTimer.budget(MarioGame.maxTime, this.agentTickBudget, this.agentCloneBudget);
+            }
+            last.restart();
+            return last;
+        }
+        return new MarioTimer(MarioGame.maxTime);
+    }
+
+    private MarioForwardModel agentView(MarioTimer agentTimer) {
+        MarioForwardModel model = MarioForwardModel.view(this.world);
+        model.setBudget(agentTimer);
+        return model;
+    }
+
     private int getDelay(int fps) {
         if (fps <= 0) {
             return 0;
@@ -213,28 +267,101 @@ public class MarioGame {
      */
     public MarioResult runGame(MarioAgent agent, String level, int timer, int marioState, boolean visuals, int fps, float scale) {
         if (visuals) {
-			this.window = new JFrame("Mario AI Framework");
-			this.render = new MarioRender(scale);
-			this.chat = new MarioChat(this, scale);
-			this.window.setLayout(new FlowLayout());
-			//this.window.setContentPane(this.render);
-			this.window.add(this.render);
-			this.window.add(this.chat);
-			this.window.pack();
-			this.window.setResizable(false);
-			this.window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-			this.render.init();
-			this.chat.init();
-			this.window.setVisible(true);
+            this.initializeWindow(scale);
+        }
+        this.setAgent(agent);
+        return this.gameLoop(level, timer, marioState, visuals, fps);
+    }
+
+    /**
+     * Run a level model with a certain agent without converting the model to a string first
+     *
+     * @param agent the current AI agent used to play the game
+     * @param level the level model to be played, it is not modified
+     * @param timer number of ticks for that level to be played. Setting timer to anything <=0 will make the time infinite
+     * @return statistics about the current game
+     */
+    public MarioResult runGame(MarioAgent agent, MarioLevelModel level, int timer) {
+        return this.runGame(agent, level, timer, 0, false, 0, 2);
+    }
+
+    /**
+     * Run a level model with a certain agent without converting the model to a string first
+     *
+     * @param agent      the current AI agent used to play the game
+     * @param level      the level model to be played, it is not modified
+     * @param timer      number of ticks for that level to be played. Setting timer to anything <=0 will make the time infinite
+     * @param marioState the initial state that mario appears in. 0 small mario, 1 large mario, and 2 fire mario.
+     * @param visuals    show the game visuals if it is true and false otherwise
+     * @param fps        the number of frames per second that the update function is following
+     * @param scale      the screen scale, that scale value is multiplied by the actual width and height
+     * @return statistics about the current game
+     */
+    public MarioResult runGame(MarioAgent agent, MarioLevelModel level, int timer, int marioState, boolean visuals, int fps, float scale) {
+        if (visuals) {
+            this.initializeWindow(scale);
         }
         this.setAgent(agent);
         return this.gameLoop(level, timer, marioState, visuals, fps);
     }
 
+    private void initializeWindow(float scale) {
+        this.window = new JFrame("Mario AI Framework");
+        this.render = new MarioRender(scale);
+        this.chat = new MarioChat(this, scale);
+        this.window.setLayout(new FlowLayout());
+        //this.window.setContentPane(this.render);
+        this.window.add(this.render);
+        this.window.add(this.chat);
+        this.window.pack();
+        this.window.setResizable(false);
+        this.window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        this.render.init();
+        this.chat.init();
+        this.window.setVisible(true);
+    }
+
     private MarioResult gameLoop(String level, int timer, int marioState, boolean visual, int fps) {
+        if (visual) {
+            this.world = new MarioWorld(this.killEvents);
+            this.world.visuals = true;
+            this.world.initializeLevel(level, 1000 * timer);
+        } else {
+            this.reset(level, timer);
+        }
+        return this.gameLoop(marioState, visual, fps);
+    }
+
+    /**
+     * Set the game world to the start of a level without visuals. The level of the last reset is kept parsed, so
+     * running the same level again (like for batches of games) only copies it into the world of the last game
+     *
+     * @param level a string that constitutes the mario level, it uses the same representation as the VGLC but with more details. for more details about each symbol check the json file in the levels folder.
+     * @param timer number of ticks for that level to be played. Setting timer to anything <=0 will make the time infinite
+     */
+    public void reset(String level, int timer) {
+        if (this.template == null || this.templateTimer != timer || !level.equals(this.templateLevel)) {
+            this.template = new MarioWorld(this.killEvents);
+            this.template.initializeLevel(level, 1000 * timer);
+            this.templateLevel = level;
+            this.templateTimer = timer;
+        }
+        if (this.world == null || this.world.visuals) {
+            this.world = new MarioWorld(this.killEvents);
+        } else {
+            this.world.release();
+        }
+        this.world.reset(this.template);
+    }
+
+    private MarioResult gameLoop(MarioLevelModel level, int timer, int marioState, boolean visual, int fps) {
         this.world = new MarioWorld(this.killEvents);
         this.world.visuals = visual;
         this.world.initializeLevel(level, 1000 * timer);
+        return this.gameLoop(marioState, visual, fps);
+    }
+
+    private MarioResult gameLoop(int marioState, boolean visual, int fps) {
         if (visual) {
             this.world.initializeVisuals(this.render.getGraphicsConfiguration());
         }
@@ -254,16 +381,21 @@ public class MarioGame {
             this.render.addFocusListener(this.render);
         }
 
-        MarioTimer agentTimer = new MarioTimer(MarioGame.maxTime);
-        this.agent.initialize(new MarioForwardModel(this.world.clone()), agentTimer);
+        MarioTimer agentTimer = this.newAgentTimer(null);
+        this.agent.initialize(this.agentView(agentTimer), agentTimer);
 
-        ArrayList<MarioEvent> gameEvents = new ArrayList<>();
-        ArrayList<MarioAgentEvent> agentEvents = new ArrayList<>();
+        MarioEventBuffer gameEvents = new MarioEventBuffer();
+        MarioAgentEventBuffer agentEvents = new MarioAgentEventBuffer();
+        MarioForwardModel liveModel = MarioForwardModel.view(this.world);
+        for (MarioEarlyExit earlyExit : this.earlyExits) {
+            earlyExit.start(liveModel);
+        }
         while (this.world.gameStatus == GameStatus.RUNNING) {
             if (!this.pause) {
                 //get actions
-                agentTimer = new MarioTimer(MarioGame.maxTime);
-                boolean[] actions = this.agent.getActions(new MarioForwardModel(this.world.clone()), agentTimer);
+                agentTimer = this.newAgentTimer(agentTimer);
+                // the agent gets a view of the live world, it is only copied if the agent simulates from it
+                int actions = this.agent.getActionMask(this.agentView(agentTimer), agentTimer);
                 if (MarioGame.verbose) {
                     if (agentTimer.getRemainingTime() < 0 && Math.abs(agentTimer.getRemainingTime()) > MarioGame.graceTime) {
                         System.out.println("The Agent is slowing down the game by: "
@@ -273,19 +405,29 @@ public class MarioGame {
                 // update world
                 this.world.update(actions);
                 gameEvents.addAll(this.world.lastFrameEvents);
-				MarioAgentEvent agentEvent = new MarioAgentEvent(actions, this.world.mario.x, this.world.mario.y, 
+				agentEvents.add(actions, this.world.mario.x, this.world.mario.y,
 					(this.world.mario.isLarge ? 1 : 0) + (this.world.mario.isFire ? 1 : 0),
 					this.world.mario.onGround, this.world.currentTick);
-                agentEvents.add(agentEvent);
+
+                // check if the game can be stopped already
+                for (MarioEarlyExit earlyExit : this.earlyExits) {
+                    if (this.world.gameStatus == GameStatus.RUNNING && earlyExit.shouldExit(liveModel)) {
+                        this.world.timeout();
+                    }
+                }
 						
 				// update chat
-				this.chat.chatWorker.AddNewEventsToFunnel(this.world.lastFrameEvents, agentEvent, new MarioForwardModel(this.world.clone()));
+				if (this.chat != null) {
+					this.chat.chatWorker.AddNewEventsToFunnel(this.world.lastFrameEvents.toList(),
+						agentEvents.get(agentEvents.size() - 1), new MarioForwardModel(this.world.clone()));
+				}
 				
 				// update agent
 				if(this.newAgent != null) {
 					this.setAgent(this.newAgent);
 					this.newAgent = null;
-					this.agent.initialize(new MarioForwardModel(this.world.clone()), agentTimer);
+					agentTimer = this.newAgentTimer(agentTimer);
+					this.agent.initialize(this.agentView(agentTimer), agentTimer);
 				}
             }
 
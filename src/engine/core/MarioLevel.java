@@ -18,12 +18,79 @@ public class MarioLevel {
     public int totalCoins = 0;
     public int marioTileX, marioTileY, exitTileX, exitTileY;
 
-    private int[][] levelTiles;
-    private SpriteType[][] spriteTemplates;
-    private int[][] lastSpawnTime;
+    // the tiles column after column, every column has an empty tile above and below it so getBlock only has to
+    // clamp the position (see tileIndex). Tile indices are stored as unsigned bytes
+    private byte[] levelTiles;
+    private int tileStride;
+    // the enemy templates of the level sorted by column then row, only the spawn ticks change after parsing so
+    // the other arrays are shared with the clones
+    private int[] spawnX = new int[0];
+    private int[] spawnY = new int[0];
+    private SpriteType[] spawnType = new SpriteType[0];
+    private String[] spawnCode = new String[0];
+    private int[] spawnTick = new int[0];
+    // analysis of the level as it was at the start, shared with all the clones
+    MarioLevelReachability reachability;
+    // xor of the keys of every tile and spawn tick that changed since the level was parsed
+    private long changesHash = 0;
     private MarioTilemap graphics;
     private MarioImage flag;
 
+    // tile index and enemy template for every level character that doesn't depend on its neighbours
+    private static final int[] charTiles = new int[128];
+    private static final SpriteType[] charSprites = new SpriteType[128];
+
+    static {
+        java.util.Arrays.fill(charSprites, SpriteType.NONE);
+        charSprites['y'] = SpriteType.SPIKY;
+        charSprites['Y'] = SpriteType.SPIKY_WINGED;
+        charSprites['E'] = SpriteType.GOOMBA;
+        charSprites['g'] = SpriteType.GOOMBA;
+        charSprites['G'] = SpriteType.GOOMBA_WINGED;
+        charSprites['k'] = SpriteType.GREEN_KOOPA;
+        charSprites['K'] = SpriteType.GREEN_KOOPA_WINGED;
+        charSprites['r'] = SpriteType.RED_KOOPA;
+        charSprites['R'] = SpriteType.RED_KOOPA_WINGED;
+        //floor
+        charTiles['X'] = 1;
+        //pyramidBlock
+        charTiles['#'] = 2;
+        //background for jump through block
+        charTiles['|'] = 47;
+        //bullet bill head
+        charTiles['B'] = 3;
+        //mushroom question block
+        charTiles['?'] = 8;
+        charTiles['@'] = 8;
+        //coin question block
+        charTiles['Q'] = 11;
+        charTiles['!'] = 11;
+        //invisible 1 up block
+        charTiles['1'] = 48;
+        //invisible coin block
+        charTiles['2'] = 49;
+        //used
+        charTiles['D'] = 14;
+        //normal block
+        charTiles['S'] = 6;
+        //coin block
+        charTiles['C'] = 7;
+        //mushroom block
+        charTiles['U'] = 50;
+        //1up block
+        charTiles['L'] = 51;
+        //coin
+        charTiles['o'] = 15;
+        //pipe top left
+        charTiles['<'] = 18;
+        //pipe top right
+        charTiles['>'] = 19;
+        //pipe body left
+        charTiles['['] = 20;
+        //pipe body right
+        charTiles[']'] = 21;
+    }
+
     public MarioLevel(String level, boolean visuals) {
         if (level.trim().length() == 0) {
             this.tileWidth = 0;
@@ -33,27 +100,49 @@ public class MarioLevel {
             return;
         }
         String[] lines = level.split("\\r?\\n");
-        this.tileWidth = lines[0].length();
-        this.width = this.tileWidth * 16;
-        this.tileHeight = lines.length;
-        this.height = this.tileHeight * 16;
-
-        this.levelTiles = new int[lines[0].length()][lines.length];
-        this.spriteTemplates = new SpriteType[lines[0].length()][lines.length];
-        this.lastSpawnTime = new int[lines[0].length()][lines.length];
+        char[][] map = new char[lines[0].length()][lines.length];
         for (int y = 0; y < lines.length; y++) {
-            for (int x = 0; x < lines[y].length(); x++) {
-                this.levelTiles[x][y] = 0;
-                this.spriteTemplates[x][y] = SpriteType.NONE;
-                this.lastSpawnTime[x][y] = -40;
+            for (int x = 0; x < map.length; x++) {
+                map[x][y] = x < lines[y].length() ? lines[y].charAt(x) : MarioLevelModel.EMPTY;
             }
         }
+        this.parseLevel(map, visuals);
+    }
+
+    /**
+     * Build the level straight from a level model without going through its string form
+     *
+     * @param level   the level model, it is only read
+     * @param visuals true if the level graphics should be created
+     */
+    public MarioLevel(MarioLevelModel level, boolean visuals) {
+        this.parseLevel(level.getMapColumns(), visuals);
+    }
+
+    private void parseLevel(char[][] map, boolean visuals) {
+        int levelWidth = map.length;
+        int levelHeight = map[0].length;
+        this.tileWidth = levelWidth;
+        this.width = this.tileWidth * 16;
+        this.tileHeight = levelHeight;
+        this.height = this.tileHeight * 16;
+
+        this.tileStride = levelHeight + 2;
+        this.levelTiles = new byte[levelWidth * this.tileStride];
+        ArrayList<Integer> templates = new ArrayList<>();
+        ArrayList<SpriteType> templateTypes = new ArrayList<>();
 
         boolean marioLocInit = false;
         boolean exitLocInit = false;
-        for (int y = 0; y < lines.length; y++) {
-            for (int x = 0; x < lines[y].length(); x++) {
-                Character c = lines[y].charAt(x);
+        for (int x = 0; x < levelWidth; x++) {
+            char[] column = map[x];
+            for (int y = 0; y < levelHeight; y++) {
+                char c = column[y];
+                if (c >= 128) {
+                    continue;
+                }
+                this.levelTiles[this.tileIndex(x, y)] = (byte) charTiles[c];
+                SpriteType template = charSprites[c];
                 switch (c) {
                     case 'M':
                         this.marioTileX = x;
@@ -65,156 +154,52 @@ public class MarioLevel {
                         this.exitTileY = y;
                         exitLocInit = true;
                         break;
-                    case 'y':
-                        this.spriteTemplates[x][y] = SpriteType.SPIKY;
-                        break;
-                    case 'Y':
-                        this.spriteTemplates[x][y] = SpriteType.SPIKY_WINGED;
-                        break;
-                    case 'E':
-                    case 'g':
-                        this.spriteTemplates[x][y] = SpriteType.GOOMBA;
-                        break;
-                    case 'G':
-                        this.spriteTemplates[x][y] = SpriteType.GOOMBA_WINGED;
-                        break;
-                    case 'k':
-                        this.spriteTemplates[x][y] = SpriteType.GREEN_KOOPA;
-                        break;
-                    case 'K':
-                        this.spriteTemplates[x][y] = SpriteType.GREEN_KOOPA_WINGED;
-                        break;
-                    case 'r':
-                        this.spriteTemplates[x][y] = SpriteType.RED_KOOPA;
-                        break;
-                    case 'R':
-                        this.spriteTemplates[x][y] = SpriteType.RED_KOOPA_WINGED;
-                        break;
-                    case 'X':
-                        //floor
-                        this.levelTiles[x][y] = 1;
-                        break;
-                    case '#':
-                        //pyramidBlock
-                        this.levelTiles[x][y] = 2;
+                    case 'Q':
+                    case '!':
+                    case '2':
+                    case 'C':
+                    case 'o':
+                        this.totalCoins += 1;
                         break;
                     case '%':
                         //jump through block
                         int tempIndex = 0;
-                        if (x > 0 && lines[y].charAt(x - 1) == '%') {
+                        if (x > 0 && map[x - 1][y] == '%') {
                             tempIndex += 2;
                         }
-                        if (x < this.levelTiles.length - 1 && lines[y].charAt(x + 1) == '%') {
+                        if (x < levelWidth - 1 && map[x + 1][y] == '%') {
                             tempIndex += 1;
                         }
-                        this.levelTiles[x][y] = 43 + tempIndex;
-                        break;
-                    case '|':
-                        //background for jump through block
-                        this.levelTiles[x][y] = 47;
+                        this.levelTiles[this.tileIndex(x, y)] = (byte) (43 + tempIndex);
                         break;
                     case '*':
                         //bullet bill
                         tempIndex = 0;
-                        if (y > 0 && lines[y - 1].charAt(x) == '*') {
+                        if (y > 0 && column[y - 1] == '*') {
                             tempIndex += 1;
                         }
-                        if (y > 1 && lines[y - 2].charAt(x) == '*') {
+                        if (y > 1 && column[y - 2] == '*') {
                             tempIndex += 1;
                         }
-                        this.levelTiles[x][y] = 3 + tempIndex;
-                        break;
-                    case 'B':
-                        //bullet bill head
-                        this.levelTiles[x][y] = 3;
+                        this.levelTiles[this.tileIndex(x, y)] = (byte) (3 + tempIndex);
                         break;
                     case 'b':
                         //bullet bill neck and body
                         tempIndex = 0;
-                        if (y > 1 && lines[y - 2].charAt(x) == 'B') {
+                        if (y > 1 && column[y - 2] == 'B') {
                             tempIndex += 1;
                         }
-                        this.levelTiles[x][y] = 4 + tempIndex;
-                        break;
-                    case '?':
-                    case '@':
-                        //mushroom question block
-                        this.levelTiles[x][y] = 8;
-                        break;
-                    case 'Q':
-                    case '!':
-                        //coin question block
-                        this.totalCoins += 1;
-                        this.levelTiles[x][y] = 11;
-                        break;
-                    case '1':
-                        //invisible 1 up block
-                        this.levelTiles[x][y] = 48;
-                        break;
-                    case '2':
-                        //invisible coin block
-                        this.totalCoins += 1;
-                        this.levelTiles[x][y] = 49;
-                        break;
-                    case 'D':
-                        //used
-                        this.levelTiles[x][y] = 14;
-                        break;
-                    case 'S':
-                        //normal block
-                        this.levelTiles[x][y] = 6;
-                        break;
-                    case 'C':
-                        //coin block
-                        this.totalCoins += 1;
-                        this.levelTiles[x][y] = 7;
-                        break;
-                    case 'U':
-                        //mushroom block
-                        this.levelTiles[x][y] = 50;
-                        break;
-                    case 'L':
-                        //1up block
-                        this.levelTiles[x][y] = 51;
-                        break;
-                    case 'o':
-                        //coin
-                        this.totalCoins += 1;
-                        this.levelTiles[x][y] = 15;
+                        this.levelTiles[this.tileIndex(x, y)] = (byte) (4 + tempIndex);
                         break;
                     case 't':
-                        //empty Pipe
-                        tempIndex = 0;
-                        boolean singlePipe = false;
-                        if (x < lines[y].length() - 1 && Character.toLowerCase(lines[y].charAt(x + 1)) != 't' &&
-                                x > 0 && Character.toLowerCase(lines[y].charAt(x - 1)) != 't') {
-                            singlePipe = true;
-                        }
-                        if (x > 0 && (this.levelTiles[x - 1][y] == 18 || this.levelTiles[x - 1][y] == 20)) {
-                            tempIndex += 1;
-                        }
-                        if (y > 0 && Character.toLowerCase(lines[y - 1].charAt(x)) == 't') {
-                            if (singlePipe) {
-                                tempIndex += 1;
-                            } else {
-                                tempIndex += 2;
-                            }
-                        }
-                        if (singlePipe) {
-                            this.levelTiles[x][y] = 52 + tempIndex;
-                        } else {
-                            this.levelTiles[x][y] = 18 + tempIndex;
-                        }
-                        break;
                     case 'T':
-                        //flower pipe
+                        //empty pipe or flower pipe
                         tempIndex = 0;
-                        singlePipe = x < lines[y].length() - 1 && Character.toLowerCase(lines[y].charAt(x + 1)) != 't' &&
-                                x > 0 && Character.toLowerCase(lines[y].charAt(x - 1)) != 't';
-                        if (x > 0 && (this.levelTiles[x - 1][y] == 18 || this.levelTiles[x - 1][y] == 20)) {
+                        boolean singlePipe = x < levelWidth - 1 && !isPipe(map[x + 1][y]) && x > 0 && !isPipe(map[x - 1][y]);
+                        if (x > 0 && (this.getBlock(x - 1, y) == 18 || this.getBlock(x - 1, y) == 20)) {
                             tempIndex += 1;
                         }
-                        if (y > 0 && Character.toLowerCase(lines[y - 1].charAt(x)) == 't') {
+                        if (y > 0 && isPipe(column[y - 1])) {
                             if (singlePipe) {
                                 tempIndex += 1;
                             } else {
@@ -222,56 +207,72 @@ public class MarioLevel {
                             }
                         }
                         if (singlePipe) {
-                            this.levelTiles[x][y] = 52 + tempIndex;
+                            this.levelTiles[this.tileIndex(x, y)] = (byte) (52 + tempIndex);
                         } else {
-                            if (tempIndex == 0) {
-                                this.spriteTemplates[x][y] = SpriteType.ENEMY_FLOWER;
+                            if (c == 'T' && tempIndex == 0) {
+                                template = SpriteType.ENEMY_FLOWER;
                             }
-                            this.levelTiles[x][y] = 18 + tempIndex;
+                            this.levelTiles[this.tileIndex(x, y)] = (byte) (18 + tempIndex);
                         }
                         break;
-                    case '<':
-                        //pipe top left
-                        this.levelTiles[x][y] = 18;
-                        break;
-                    case '>':
-                        //pipe top right
-                        this.levelTiles[x][y] = 19;
-                        break;
-                    case '[':
-                        //pipe body left
-                        this.levelTiles[x][y] = 20;
-                        break;
-                    case ']':
-                        //pipe body right
-                        this.levelTiles[x][y] = 21;
-                        break;
+                }
+                if (template != SpriteType.NONE) {
+                    templates.add(x);
+                    templates.add(y);
+                    templateTypes.add(template);
                 }
             }
         }
+        int count = templateTypes.size();
+        this.spawnX = new int[count];
+        this.spawnY = new int[count];
+        this.spawnType = templateTypes.toArray(new SpriteType[0]);
+        this.spawnCode = new String[count];
+        this.spawnTick = new int[count];
+        for (int i = 0; i < count; i++) {
+            this.spawnX[i] = templates.get(2 * i);
+            this.spawnY[i] = templates.get(2 * i + 1);
+            this.spawnCode[i] = this.spawnX[i] + "_" + this.spawnY[i] + "_" + this.spawnType[i].getValue();
+            this.spawnTick[i] = -40;
+        }
         if (!marioLocInit) {
             this.marioTileX = 0;
-            this.marioTileY = findFirstFloor(lines, this.marioTileX);
+            this.marioTileY = findFirstFloor(map, this.marioTileX);
         }
         if (!exitLocInit) {
-            this.exitTileX = lines[0].length() - 1;
-            this.exitTileY = findFirstFloor(lines, this.exitTileX);
+            this.exitTileX = levelWidth - 1;
+            this.exitTileY = findFirstFloor(map, this.exitTileX);
         }
         for (int y = this.exitTileY; y > Math.max(1, this.exitTileY - 11); y--) {
-            this.levelTiles[this.exitTileX][y] = 40;
+            this.levelTiles[this.tileIndex(this.exitTileX, y)] = (byte) 40;
         }
-        this.levelTiles[this.exitTileX][Math.max(1, this.exitTileY - 11)] = 39;
+        this.levelTiles[this.tileIndex(this.exitTileX, Math.max(1, this.exitTileY - 11))] = (byte) 39;
 
         if (visuals) {
-            this.graphics = new MarioTilemap(Assets.level, this.levelTiles);
+            this.graphics = new MarioTilemap(Assets.level, this);
             this.flag = new MarioImage(Assets.level, 41);
             this.flag.width = 16;
             this.flag.height = 16;
         }
     }
 
+    private static boolean isPipe(char c) {
+        return c == 't' || c == 'T';
+    }
+
     public MarioLevel clone() {
         MarioLevel level = new MarioLevel("", false);
+        this.copyInto(level);
+        return level;
+    }
+
+    /**
+     * Make another level object a copy of this one without the graphics, reusing its tile arrays when they have
+     * the right size
+     *
+     * @param level the level that will be overwritten
+     */
+    public void copyInto(MarioLevel level) {
         level.width = this.width;
         level.height = this.height;
         level.tileWidth = this.tileWidth;
@@ -281,46 +282,49 @@ public class MarioLevel {
         level.marioTileY = this.marioTileY;
         level.exitTileX = this.exitTileX;
         level.exitTileY = this.exitTileY;
-        level.levelTiles = new int[this.levelTiles.length][this.levelTiles[0].length];
-        level.lastSpawnTime = new int[this.levelTiles.length][this.levelTiles[0].length];
-        for (int x = 0; x < level.levelTiles.length; x++) {
-            for (int y = 0; y < level.levelTiles[x].length; y++) {
-                level.levelTiles[x][y] = this.levelTiles[x][y];
-                level.lastSpawnTime[x][y] = this.lastSpawnTime[x][y];
-            }
+        if (level.levelTiles == null || level.levelTiles.length != this.levelTiles.length) {
+            level.levelTiles = new byte[this.levelTiles.length];
         }
-        level.spriteTemplates = this.spriteTemplates;
-        return level;
+        System.arraycopy(this.levelTiles, 0, level.levelTiles, 0, this.levelTiles.length);
+        level.tileStride = this.tileStride;
+        level.spawnX = this.spawnX;
+        level.spawnY = this.spawnY;
+        level.spawnType = this.spawnType;
+        level.spawnCode = this.spawnCode;
+        if (level.spawnTick.length != this.spawnTick.length) {
+            level.spawnTick = new int[this.spawnTick.length];
+        }
+        System.arraycopy(this.spawnTick, 0, level.spawnTick, 0, this.spawnTick.length);
+        level.reachability = this.reachability;
+        level.changesHash = this.changesHash;
     }
 
     public boolean isBlocking(int xTile, int yTile, float xa, float ya) {
-        int block = this.getBlock(xTile, yTile);
-        ArrayList<TileFeature> features = TileFeature.getTileType(block);
-        boolean blocking = features.contains(TileFeature.BLOCK_ALL);
-        blocking |= (ya < 0) && features.contains(TileFeature.BLOCK_UPPER);
-        blocking |= (ya > 0) && features.contains(TileFeature.BLOCK_LOWER);
+        int features = TileFeature.getTileMask(this.getBlock(xTile, yTile));
+        boolean blocking = (features & TileFeature.BLOCK_ALL.getMask()) != 0;
+        blocking |= (ya < 0) && (features & TileFeature.BLOCK_UPPER.getMask()) != 0;
+        blocking |= (ya > 0) && (features & TileFeature.BLOCK_LOWER.getMask()) != 0;
 
         return blocking;
     }
 
+    private int tileIndex(int xTile, int yTile) {
+        return xTile * this.tileStride + yTile + 1;
+    }
+
     public int getBlock(int xTile, int yTile) {
-        if (xTile < 0) {
-            xTile = 0;
-        }
-        if (xTile > this.tileWidth - 1) {
-            xTile = this.tileWidth - 1;
-        }
-        if (yTile < 0 || yTile > this.tileHeight - 1) {
-            return 0;
-        }
-        return this.levelTiles[xTile][yTile];
+        // x is clamped to the level, y above or below the level lands on the empty tiles around the columns
+        xTile = Math.min(Math.max(xTile, 0), this.tileWidth - 1);
+        yTile = Math.min(Math.max(yTile, -1), this.tileHeight);
+        return this.levelTiles[xTile * this.tileStride + yTile + 1] & 0xFF;
     }
 
     public void setBlock(int xTile, int yTile, int index) {
         if (xTile < 0 || yTile < 0 || xTile > this.tileWidth - 1 || yTile > this.tileHeight - 1) {
             return;
         }
-        this.levelTiles[xTile][yTile] = index;
+        this.changesHash ^= this.tileKey(xTile, yTile, this.levelTiles[this.tileIndex(xTile, yTile)] & 0xFF) ^ this.tileKey(xTile, yTile, index);
+        this.levelTiles[this.tileIndex(xTile, yTile)] = (byte) index;
     }
 
     public void setShiftIndex(int xTile, int yTile, int shift) {
@@ -330,25 +334,108 @@ public class MarioLevel {
         this.graphics.moveShift[xTile][yTile] = shift;
     }
 
-    public SpriteType getSpriteType(int xTile, int yTile) {
-        if (xTile < 0 || yTile < 0 || xTile >= this.tileWidth || yTile >= this.tileHeight) {
-            return SpriteType.NONE;
+    /**
+     * Find the first enemy template at or right of a column, the templates are sorted by column then row
+     *
+     * @param xTile the column
+     * @return the index of that template, getSpawnCount() if there is none
+     */
+    int findSpawn(int xTile) {
+        int low = 0;
+        int high = this.spawnX.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.spawnX[mid] < xTile) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
         }
-        return this.spriteTemplates[xTile][yTile];
+        return low;
+    }
+
+    private int findSpawn(int xTile, int yTile) {
+        for (int i = this.findSpawn(xTile); i < this.spawnX.length && this.spawnX[i] == xTile; i++) {
+            if (this.spawnY[i] == yTile) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int getSpawnCount() {
+        return this.spawnX.length;
+    }
+
+    int getSpawnX(int i) {
+        return this.spawnX[i];
+    }
+
+    int getSpawnY(int i) {
+        return this.spawnY[i];
+    }
+
+    SpriteType getSpawnType(int i) {
+        return this.spawnType[i];
+    }
+
+    String getSpawnCode(int i) {
+        return this.spawnCode[i];
+    }
+
+    int getSpawnTick(int i) {
+        return this.spawnTick[i];
+    }
+
+    void setSpawnTick(int i, int tick) {
+        this.changesHash ^= this.spawnKey(this.spawnX[i], this.spawnY[i], this.spawnTick[i])
+                ^ this.spawnKey(this.spawnX[i], this.spawnY[i], tick);
+        this.spawnTick[i] = tick;
+    }
+
+    public SpriteType getSpriteType(int xTile, int yTile) {
+        int i = this.findSpawn(xTile, yTile);
+        return i < 0 ? SpriteType.NONE : this.spawnType[i];
     }
 
     public int getLastSpawnTick(int xTile, int yTile) {
         if (xTile < 0 || yTile < 0 || xTile > this.tileWidth - 1 || yTile > this.tileHeight - 1) {
             return 0;
         }
-        return this.lastSpawnTime[xTile][yTile];
+        int i = this.findSpawn(xTile, yTile);
+        return i < 0 ? -40 : this.spawnTick[i];
     }
 
+    /**
+     * Set the last tick the enemy of a tile was seen, only tiles with an enemy template keep it
+     *
+     * @param xTile the column
+     * @param yTile the row
+     * @param tick  the tick
+     */
     public void setLastSpawnTick(int xTile, int yTile, int tick) {
-        if (xTile < 0 || yTile < 0 || xTile > this.tileWidth - 1 || yTile > this.tileHeight - 1) {
-            return;
+        int i = this.findSpawn(xTile, yTile);
+        if (i >= 0) {
+            this.setSpawnTick(i, tick);
         }
-        this.lastSpawnTime[xTile][yTile] = tick;
+    }
+
+    private long tileKey(int xTile, int yTile, int index) {
+        return MarioStateHash.mix(((long) index << 40) ^ ((long) xTile << 16) ^ yTile);
+    }
+
+    private long spawnKey(int xTile, int yTile, int tick) {
+        return MarioStateHash.mix(((long) tick << 40) ^ ((long) xTile << 16) ^ yTile ^ 0x8000_0000L);
+    }
+
+    /**
+     * Get a hash of every change made to the level since it was loaded (broken bricks, used question blocks,
+     * spawn times of the enemies), it is updated on every change so it costs nothing to read
+     *
+     * @return 0 for an untouched level and a hash of the changes otherwise
+     */
+    public long getChangesHash() {
+        return this.changesHash;
     }
 
     public String getSpriteCode(int xTile, int yTile) {
@@ -361,10 +448,10 @@ public class MarioLevel {
                 c == 'S' || c == 'U' || c == 'D' || c == '%' || c == 't' || c == 'T';
     }
 
-    private int findFirstFloor(String[] lines, int x) {
+    private int findFirstFloor(char[][] map, int x) {
         boolean skipLines = true;
-        for (int i = lines.length - 1; i >= 0; i--) {
-            Character c = lines[i].charAt(x);
+        for (int i = map[x].length - 1; i >= 0; i--) {
+            char c = map[x][i];
             if (isSolid(c)) {
                 skipLines = false;
                 continue;
@@ -0,0 +1,361 @@
+package engine.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import engine.helper.SpriteType;
+
+/**
+ * Structural features of a whole folder of levels (gaps, enemies, pipes, coins, ...) computed once and stored
+ * column by column, so subsets of the corpus can be selected without reading or parsing the level files again.
+ */
+public class MarioLevelIndex {
+    private static final int MAGIC = 0x4d4c4958;
+    private static final int VERSION = 1;
+
+    /**
+     * Features stored for every level in the index
+     */
+    public enum Feature {
+        WIDTH,
+        HEIGHT,
+        GAPS,
+        GAP_TILES,
+        ENEMIES,
+        WINGED_ENEMIES,
+        ENEMY_DENSITY,
+        PIPES,
+        FLOWER_PIPES,
+        CANNONS,
+        COINS,
+        QUESTION_BLOCKS,
+        BRICKS
+    }
+
+    private String[] folders;
+    private int[] levelFolders;
+    private String[] levelNames;
+    // columns[feature][level]
+    private float[][] columns;
+
+    private MarioLevelIndex(int numLevels) {
+        this.levelFolders = new int[numLevels];
+        this.levelNames = new String[numLevels];
+        this.columns = new float[Feature.values().length][numLevels];
+    }
+
+    /**
+     * Parse every level in the sub folders of a levels folder and compute its features
+     *
+     * @param levelsFolder the folder that contains one folder per generator (like the levels folder of the repo)
+     * @param threads      number of threads used to parse the levels
+     * @return the index of all the levels that were found
+     * @throws IOException           if a level file couldn't be read
+     * @throws IllegalStateException if parsing a level threw an exception, it is the cause
+     */
+    public static MarioLevelIndex build(String levelsFolder, int threads) throws IOException, InterruptedException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The index needs at least one thread to parse the levels");
+        }
+        File[] folderFiles = new File(levelsFolder).listFiles(File::isDirectory);
+        if (folderFiles == null) {
+            throw new IOException("Couldn't list the folders in " + levelsFolder);
+        }
+        Arrays.sort(folderFiles);
+        ArrayList<File> levelFiles = new ArrayList<>();
+        ArrayList<Integer> levelFolders = new ArrayList<>();
+        for (int i = 0; i < folderFiles.length; i++) {
+            File[] files = folderFiles[i].listFiles((dir, name) -> name.endsWith(".txt"));
+            Arrays.sort(files);
+            for (File f : files) {
+                levelFiles.add(f);
+                levelFolders.add(i);
+            }
+        }
+
+        MarioLevelIndex index = new MarioLevelIndex(levelFiles.size());
+        index.folders = new String[folderFiles.length];
+        for (int i = 0; i < folderFiles.length; i++) {
+            index.folders[i] = folderFiles[i].getName();
+        }
+        for (int i = 0; i < levelFiles.size(); i++) {
+            index.levelFolders[i] = levelFolders.get(i);
+            index.levelNames[i] = levelFiles.get(i).getName();
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        // the first failure of any worker, the other workers stop taking levels once it is set
+        AtomicReference<Exception> error = new AtomicReference<>();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                int i;
+                while (error.get() == null && (i = next.getAndIncrement()) < levelFiles.size()) {
+                    try {
+                        String level = new String(Files.readAllBytes(levelFiles.get(i).toPath()));
+                        index.computeFeatures(i, new MarioLevel(level, false));
+                    } catch (IOException | RuntimeException e) {
+                        if (!error.compareAndSet(null, e)) {
+                            error.get().addSuppressed(e);
+                        }
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        Exception e = error.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+        if (e != null) {
+            throw new IllegalStateException("Level index worker failed", e);
+        }
+        return index;
+    }
+
+    private void computeFeatures(int id, MarioLevel level) {
+        int gaps = 0, gapTiles = 0, enemies = 0, winged = 0, pipes = 0, flowerPipes = 0, cannons = 0;
+        int questionBlocks = 0, bricks = 0;
+        boolean inGap = false;
+        for (int x = 0; x < level.tileWidth; x++) {
+            // a gap is a run of columns without anything to stand on in the bottom row
+            boolean floor = level.isBlocking(x, level.tileHeight - 1, 0, 1);
+            if (!floor) {
+                gapTiles += 1;
+                if (!inGap) {
+                    gaps += 1;
+                }
+            }
+            inGap = !floor;
+            for (int y = 0; y < level.tileHeight; y++) {
+                SpriteType sprite = level.getSpriteType(x, y);
+                if (sprite == SpriteType.ENEMY_FLOWER) {
+                    flowerPipes += 1;
+                } else if (sprite != SpriteType.NONE) {
+                    enemies += 1;
+                    if (sprite == SpriteType.GOOMBA_WINGED || sprite == SpriteType.RED_KOOPA_WINGED ||
+                            sprite == SpriteType.GREEN_KOOPA_WINGED || sprite == SpriteType.SPIKY_WINGED) {
+                        winged += 1;
+                    }
+                }
+                int tile = level.getBlock(x, y);
+                switch (tile) {
+                    case 18:
+                    case 52:
+                        // pipe top left or single pipe top
+                        pipes += 1;
+                        break;
+                    case 3:
+                        cannons += 1;
+                        break;
+                    case 8:
+                    case 11:
+                        questionBlocks += 1;
+                        break;
+                    case 6:
+                    case 7:
+                    case 50:
+                    case 51:
+                        bricks += 1;
+                        break;
+                }
+            }
+        }
+        this.columns[Feature.WIDTH.ordinal()][id] = level.tileWidth;
+        this.columns[Feature.HEIGHT.ordinal()][id] = level.tileHeight;
+        this.columns[Feature.GAPS.ordinal()][id] = gaps;
+        this.columns[Feature.GAP_TILES.ordinal()][id] = gapTiles;
+        this.columns[Feature.ENEMIES.ordinal()][id] = enemies;
+        this.columns[Feature.WINGED_ENEMIES.ordinal()][id] = winged;
+        this.columns[Feature.ENEMY_DENSITY.ordinal()][id] = level.tileWidth == 0 ? 0 : (float) enemies / level.tileWidth;
+        this.columns[Feature.PIPES.ordinal()][id] = pipes;
+        this.columns[Feature.FLOWER_PIPES.ordinal()][id] = flowerPipes;
+        this.columns[Feature.CANNONS.ordinal()][id] = cannons;
+        this.columns[Feature.COINS.ordinal()][id] = level.totalCoins;
+        this.columns[Feature.QUESTION_BLOCKS.ordinal()][id] = questionBlocks;
+        this.columns[Feature.BRICKS.ordinal()][id] = bricks;
+    }
+
+    /**
+     * Write the index to a file
+     *
+     * @param fileName the path of the index file
+     */
+    public void save(String fileName) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(this.folders.length);
+            for (String folder : this.folders) {
+                out.writeUTF(folder);
+            }
+            out.writeInt(this.levelNames.length);
+            for (int i = 0; i < this.levelNames.length; i++) {
+                out.writeShort(this.levelFolders[i]);
+                out.writeUTF(this.levelNames[i]);
+            }
+            out.writeInt(this.columns.length);
+            for (int f = 0; f < this.columns.length; f++) {
+                out.writeUTF(Feature.values()[f].name());
+                for (float value : this.columns[f]) {
+                    out.writeFloat(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read an index that was written using save
+     *
+     * @param fileName the path of the index file
+     * @return the loaded index
+     */
+    public static MarioLevelIndex load(String fileName) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(fileName + " is not a level index file");
+            }
+            String[] folders = new String[in.readInt()];
+            for (int i = 0; i < folders.length; i++) {
+                folders[i] = in.readUTF();
+            }
+            MarioLevelIndex index = new MarioLevelIndex(in.readInt());
+            index.folders = folders;
+            for (int i = 0; i < index.levelNames.length; i++) {
+                index.levelFolders[i] = in.readShort();
+                index.levelNames[i] = in.readUTF();
+            }
+            int numColumns = in.readInt();
+            for (int f = 0; f < numColumns; f++) {
+                float[] column = index.columns[Feature.valueOf(in.readUTF()).ordinal()];
+                for (int i = 0; i < column.length; i++) {
+                    column[i] = in.readFloat();
+                }
+            }
+            return index;
+        }
+    }
+
+    /**
+     * get the number of levels in the index
+     *
+     * @return number of levels
+     */
+    public int getNumLevels() {
+        return this.levelNames.length;
+    }
+
+    /**
+     * get the value of a feature for a level
+     *
+     * @param id      the level id
+     * @param feature the feature
+     * @return the stored feature value
+     */
+    public float getFeature(int id, Feature feature) {
+        return this.columns[feature.ordinal()][id];
+    }
+
+    /**
+     * get the folder (generator) that a level came from
+     *
+     * @param id the level id
+     * @return the folder name like "notch" or "original"
+     */
+    public String getFolder(int id) {
+        return this.folders[this.levelFolders[id]];
+    }
+
+    /**
+     * get the path of a level relative to the indexed levels folder
+     *
+     * @param id the level id
+     * @return path like "notch/lvl-12.txt"
+     */
+    public String getLevelPath(int id) {
+        return this.getFolder(id) + "/" + this.levelNames[id];
+    }
+
+    /**
+     * Start a query over all the levels in the index
+     *
+     * @return a query that matches every level until filters are added
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    /**
+     * Filters over the index, every filter narrows the set of matching levels
+     */
+    public class Query {
+        private BitSet matches;
+
+        private Query() {
+            this.matches = new BitSet(levelNames.length);
+            this.matches.set(0, levelNames.length);
+        }
+
+        /**
+         * Keep only levels where the feature is between min and max (both included)
+         */
+        public Query range(Feature feature, float min, float max) {
+            float[] column = columns[feature.ordinal()];
+            for (int i = this.matches.nextSetBit(0); i >= 0; i = this.matches.nextSetBit(i + 1)) {
+                if (column[i] < min || column[i] > max) {
+                    this.matches.clear(i);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Keep only levels where the feature has exactly that value
+         */
+        public Query equal(Feature feature, float value) {
+            return this.range(feature, value, value);
+        }
+
+        /**
+         * Keep only levels from a certain folder
+         */
+        public Query folder(String folder) {
+            int folderId = Arrays.asList(folders).indexOf(folder);
+            for (int i = this.matches.nextSetBit(0); i >= 0; i = this.matches.nextSetBit(i + 1)) {
+                if (levelFolders[i] != folderId) {
+                    this.matches.clear(i);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * get the number of levels matching all the filters
+         */
+        public int count() {
+            return this.matches.cardinality();
+        }
+
+        /**
+         * get the ids of all levels matching all the filters, use getLevelPath to find their files
+         */
+        public int[] ids() {
+            return this.matches.stream().toArray();
+        }
+    }
+}
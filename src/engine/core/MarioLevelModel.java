@@ -1,5 +1,7 @@
 package engine.core;
 
+import engine.helper.GameStatus;
+
 public class MarioLevelModel {
     //start and end of the level
     public static final char MARIO_START = 'M';
@@ -185,6 +187,15 @@ public class MarioLevelModel {
         return model;
     }
 
+    /**
+     * get the map grid itself, used to build a level without going through getMap
+     *
+     * @return the map indexed as [x][y]
+     */
+    char[][] getMapColumns() {
+        return this.map;
+    }
+
     /**
      * get map width
      *
@@ -280,6 +291,41 @@ public class MarioLevelModel {
         }
     }
 
+    /**
+     * Copy portion from an already parsed level stored as columns to the current map
+     *
+     * @param targetX the x of the target location
+     * @param targetY the y of the target location
+     * @param sourceX the x from the source columns
+     * @param sourceY the y from the source columns
+     * @param width   the width of the copied portion
+     * @param height  the height of the copied protion
+     * @param columns the source level indexed as columns[x][y]
+     */
+    public void copyFromColumns(int targetX, int targetY, int sourceX, int sourceY, int width, int height, char[][] columns) {
+        int maxWidth = columns.length;
+        int maxHeight = columns[0].length;
+        for (int x = 0; x < width; x++) {
+            int currentX = x + targetX;
+            if (currentX < 0 || currentX > this.map.length - 1) {
+                continue;
+            }
+            char[] source = columns[Math.min(x + sourceX, maxWidth - 1)];
+            char[] target = this.map[currentX];
+            // rows that exist in both the source and the target are a straight copy
+            int startY = Math.max(0, -targetY);
+            int endY = Math.min(height, Math.min(target.length - targetY, maxHeight - sourceY));
+            if (endY > startY) {
+                System.arraycopy(source, startY + sourceY, target, startY + targetY, endY - startY);
+            }
+            for (int y = Math.max(startY, endY); y < height; y++) {
+                if (y + targetY < target.length) {
+                    target[y + targetY] = source[Math.min(y + sourceY, maxHeight - 1)];
+                }
+            }
+        }
+    }
+
     /**
      * clear the whole map
      */
@@ -293,14 +339,14 @@ public class MarioLevelModel {
      * @return the map in form of string
      */
     public String getMap() {
-        String result = "";
+        StringBuilder result = new StringBuilder((map.length + 1) * map[0].length);
         for (int y = 0; y < map[0].length; y++) {
             for (int x = 0; x < map.length; x++) {
-                result += map[x][y];
+                result.append(map[x][y]);
             }
-            result += "\n";
+            result.append('\n');
         }
-        return result;
+        return result.toString();
     }
 
     /**
@@ -312,6 +358,42 @@ public class MarioLevelModel {
      */
     public MarioResult testALevelWithAgent(MarioAgent agent, int timer) {
         MarioGame game = new MarioGame();
-        return game.runGame(agent, this.getMap(), timer);
+        return game.runGame(agent, this, timer);
+    }
+
+    /**
+     * test the current level using a specific agent, giving up as soon as the agent gets stuck
+     *
+     * @param agent      agent to test the level
+     * @param timer      amount of time allowed to test that level
+     * @param stallTicks number of ticks without mario getting further in the level before the test stops
+     * @param earlyExits extra conditions that stop the test early
+     * @return statistical results about the level, TIME_OUT if the test was stopped early
+     */
+    public MarioResult testALevelWithAgent(MarioAgent agent, int timer, int stallTicks, MarioEarlyExit... earlyExits) {
+        MarioGame game = new MarioGame();
+        game.addEarlyExit(new MarioStallDetector(stallTicks));
+        for (MarioEarlyExit earlyExit : earlyExits) {
+            game.addEarlyExit(earlyExit);
+        }
+        return game.runGame(agent, this, timer);
+    }
+
+    /**
+     * test the current level with a cheap agent first and only use the expensive agent when the cheap one fails.
+     * Both runs give up as soon as mario gets stuck.
+     *
+     * @param cheapAgent fast agent tried first, like a scripted agent that runs and jumps
+     * @param agent      agent used when the cheap agent fails to finish the level
+     * @param timer      amount of time allowed to test that level
+     * @param stallTicks number of ticks without mario getting further in the level before a run stops
+     * @return the result of the cheap agent if it won, the result of the second agent otherwise
+     */
+    public MarioResult testALevelWithAgent(MarioAgent cheapAgent, MarioAgent agent, int timer, int stallTicks) {
+        MarioResult result = this.testALevelWithAgent(cheapAgent, timer, stallTicks);
+        if (result.getGameStatus() == GameStatus.WIN) {
+            return result;
+        }
+        return this.testALevelWithAgent(agent, timer, stallTicks);
     }
 }
@@ -0,0 +1,304 @@
+package engine.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import engine.helper.GameStatus;
+
+/**
+ * Generate-and-test pipeline that keeps producing levels with a level generator and only keeps the ones
+ * that pass a validator. Generation and validation run as two stages on their own threads, connected by a
+ * bounded queue so fast generators block instead of piling up candidates the validators can't keep up with.
+ */
+public class MarioLevelPipeline {
+    private static final long POLL_INTERVAL = 50;
+
+    private Supplier<MarioLevelGenerator> generatorFactory;
+    private Predicate<MarioLevelModel> validator;
+    private int levelWidth;
+    private int levelHeight;
+    private long generatorTime = 5 * 60 * 1000;
+
+    private ArrayBlockingQueue<MarioLevelModel> candidates;
+    private volatile boolean stopped;
+    private int generatorsRunning;
+    // the first exception thrown by a generator or validator, it stops the pipeline and is rethrown by run
+    private AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    // stats
+    private AtomicLong generated = new AtomicLong();
+    private AtomicLong tested = new AtomicLong();
+    private AtomicLong accepted = new AtomicLong();
+    private AtomicLong generateNanos = new AtomicLong();
+    private AtomicLong testNanos = new AtomicLong();
+    private AtomicInteger levelIndex = new AtomicInteger();
+
+    /**
+     * Create a pipeline that tests each candidate level by letting an agent play it and keeps the levels the agent wins
+     *
+     * @param generatorFactory creates a generator for each generator thread, generators keep state so they are never shared
+     * @param agentFactory     creates the agent that plays each candidate level
+     * @param timer            number of ticks the agent has to finish a candidate level
+     * @param levelWidth       the width of the generated levels
+     * @param levelHeight      the height of the generated levels
+     */
+    public MarioLevelPipeline(Supplier<MarioLevelGenerator> generatorFactory, Supplier<MarioAgent> agentFactory,
+                              int timer, int levelWidth, int levelHeight) {
+        this(generatorFactory, agentFactory, timer, levelWidth, levelHeight, false);
+    }
+
+    /**
+     * Create a pipeline that tests each candidate level by letting an agent play it and keeps the levels the agent wins,
+     * optionally rejecting levels before they are played when MarioLevelReachability finds no modelled jump that gets to
+     * the exit. The analysis only models a subset of mario's moves, so the prefilter can reject levels that could be
+     * finished, it is a fast way to throw away most broken levels when some false rejections are acceptable
+     *
+     * @param generatorFactory  creates a generator for each generator thread, generators keep state so they are never shared
+     * @param agentFactory      creates the agent that plays each candidate level
+     * @param timer             number of ticks the agent has to finish a candidate level
+     * @param levelWidth        the width of the generated levels
+     * @param levelHeight       the height of the generated levels
+     * @param rejectUnreachable true to reject levels where MarioLevelReachability.isExitReachable is false without playing them
+     */
+    public MarioLevelPipeline(Supplier<MarioLevelGenerator> generatorFactory, Supplier<MarioAgent> agentFactory,
+                              int timer, int levelWidth, int levelHeight, boolean rejectUnreachable) {
+        this(generatorFactory, (model) -> (!rejectUnreachable || new MarioLevelReachability(model).isExitReachable()) &&
+                        model.testALevelWithAgent(agentFactory.get(), timer).getGameStatus() == GameStatus.WIN,
+                levelWidth, levelHeight);
+    }
+
+    /**
+     * Create a pipeline with a custom validator
+     *
+     * @param generatorFactory creates a generator for each generator thread, generators keep state so they are never shared
+     * @param validator        returns true for candidate levels that should be kept, called from several threads at once
+     * @param levelWidth       the width of the generated levels
+     * @param levelHeight      the height of the generated levels
+     */
+    public MarioLevelPipeline(Supplier<MarioLevelGenerator> generatorFactory, Predicate<MarioLevelModel> validator,
+                              int levelWidth, int levelHeight) {
+        this.generatorFactory = generatorFactory;
+        this.validator = validator;
+        this.levelWidth = levelWidth;
+        this.levelHeight = levelHeight;
+    }
+
+    /**
+     * Set the amount of time each generator is given to build a single level
+     *
+     * @param generatorTime the number of milliseconds passed to the generator timer
+     */
+    public void setGeneratorTime(long generatorTime) {
+        this.generatorTime = generatorTime;
+    }
+
+    /**
+     * Run the pipeline until enough levels are accepted or the candidate budget is used up
+     *
+     * @param outputFolder    folder where accepted levels are written as lvl-1.txt, lvl-2.txt, ...
+     * @param numLevels       number of accepted levels after which the pipeline stops
+     * @param maxCandidates   maximum number of levels to generate, anything <=0 means no limit
+     * @param generatorThreads number of threads generating levels
+     * @param validatorThreads number of threads testing levels
+     * @param queueSize       number of generated levels allowed to wait for testing before generators block
+     * @return the number of accepted levels
+     * @throws IOException           if the output folder couldn't be created or an accepted level couldn't be written,
+     *                               the pipeline is stopped
+     * @throws IllegalStateException if a generator or validator threw an exception, the pipeline is stopped and the
+     *                               exception is the cause
+     */
+    public int run(String outputFolder, int numLevels, int maxCandidates, int generatorThreads, int validatorThreads,
+                   int queueSize) throws IOException, InterruptedException {
+        if (generatorThreads <= 0 || validatorThreads <= 0) {
+            throw new IllegalArgumentException("The pipeline needs at least one generator and one validator thread");
+        }
+        Path folder = Paths.get(outputFolder);
+        Files.createDirectories(folder);
+        this.candidates = new ArrayBlockingQueue<>(queueSize);
+        this.stopped = false;
+        this.failure.set(null);
+        this.generatorsRunning = generatorThreads;
+        this.generated.set(0);
+        this.tested.set(0);
+        this.accepted.set(0);
+        this.generateNanos.set(0);
+        this.testNanos.set(0);
+        this.levelIndex.set(0);
+
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < generatorThreads; i++) {
+            threads.add(new Thread(() -> this.generate(maxCandidates), "LevelGenerator-" + i));
+        }
+        for (int i = 0; i < validatorThreads; i++) {
+            threads.add(new Thread(() -> this.validate(folder, numLevels), "LevelValidator-" + i));
+        }
+        for (Thread t : threads) {
+            t.setDaemon(true);
+            t.start();
+        }
+        try {
+            for (Thread t : threads) {
+                t.join();
+            }
+        } finally {
+            this.stopped = true;
+        }
+        RuntimeException e = this.failure.get();
+        if (e instanceof UncheckedIOException) {
+            IOException cause = ((UncheckedIOException) e).getCause();
+            for (Throwable suppressed : e.getSuppressed()) {
+                cause.addSuppressed(suppressed);
+            }
+            throw cause;
+        }
+        if (e != null) {
+            throw new IllegalStateException("Level pipeline thread failed", e);
+        }
+        return (int) Math.min(this.accepted.get(), numLevels);
+    }
+
+    /**
+     * Stop all the pipeline threads after the levels they are working on
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    private void fail(RuntimeException e) {
+        if (!this.failure.compareAndSet(null, e)) {
+            this.failure.get().addSuppressed(e);
+        }
+        this.stopped = true;
+    }
+
+    private void generate(int maxCandidates) {
+        try {
+            MarioLevelGenerator generator = this.generatorFactory.get();
+            while (!this.stopped) {
+                if (this.generated.incrementAndGet() > maxCandidates && maxCandidates > 0) {
+                    this.generated.decrementAndGet();
+                    break;
+                }
+                long start = System.nanoTime();
+                MarioLevelModel model = new MarioLevelModel(this.levelWidth, this.levelHeight);
+                generator.getGeneratedLevel(model, new MarioTimer(this.generatorTime));
+                this.generateNanos.addAndGet(System.nanoTime() - start);
+                while (!this.stopped && !this.candidates.offer(model, POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    // queue is full, wait for the validators to catch up
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            this.fail(e);
+        } finally {
+            synchronized (this) {
+                this.generatorsRunning -= 1;
+            }
+        }
+    }
+
+    private void validate(Path folder, int numLevels) {
+        try {
+            while (!this.stopped) {
+                MarioLevelModel model = this.candidates.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (model == null) {
+                    synchronized (this) {
+                        if (this.generatorsRunning == 0 && this.candidates.isEmpty()) {
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                long start = System.nanoTime();
+                boolean passed = this.validator.test(model);
+                this.testNanos.addAndGet(System.nanoTime() - start);
+                this.tested.incrementAndGet();
+                if (passed && this.accepted.incrementAndGet() <= numLevels) {
+                    String fileName = "lvl-" + this.levelIndex.incrementAndGet() + ".txt";
+                    try {
+                        Files.write(folder.resolve(fileName), model.getMap().getBytes());
+                    } catch (IOException e) {
+                        // the level isn't kept, so it doesn't count as accepted
+                        this.accepted.decrementAndGet();
+                        throw new UncheckedIOException(e);
+                    }
+                    if (this.accepted.get() >= numLevels) {
+                        this.stopped = true;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            this.fail(e);
+        }
+    }
+
+    /**
+     * get the number of levels generated so far
+     *
+     * @return number of generated levels
+     */
+    public long getNumGenerated() {
+        return this.generated.get();
+    }
+
+    /**
+     * get the number of levels that went through the validator so far
+     *
+     * @return number of tested levels
+     */
+    public long getNumTested() {
+        return this.tested.get();
+    }
+
+    /**
+     * get the number of levels that passed the validator so far
+     *
+     * @return number of accepted levels
+     */
+    public long getNumAccepted() {
+        return this.accepted.get();
+    }
+
+    /**
+     * get the number of levels waiting between the two stages
+     *
+     * @return number of generated levels not tested yet
+     */
+    public int getNumQueued() {
+        return this.candidates == null ? 0 : this.candidates.size();
+    }
+
+    /**
+     * Throughput of the generation stage, summed over the time spent in all generator threads
+     *
+     * @return generated levels per second of generator thread time
+     */
+    public double getGenerateThroughput() {
+        long nanos = this.generateNanos.get();
+        return nanos == 0 ? 0 : this.generated.get() * 1e9 / nanos;
+    }
+
+    /**
+     * Throughput of the validation stage, summed over the time spent in all validator threads
+     *
+     * @return tested levels per second of validator thread time
+     */
+    public double getTestThroughput() {
+        long nanos = this.testNanos.get();
+        return nanos == 0 ? 0 : this.tested.get() * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,705 @@
+package engine.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import engine.helper.SpriteType;
+import engine.helper.TileFeature;
+
+/**
+ * Static analysis of which tiles of a level mario can stand on and which of them he can get to from the
+ * start. Tiles block the same way as MarioLevel.isBlocking and jumps are replayed with the movement and
+ * collision rules of Mario.update, so the jump envelope (jumpTime, 0.89 inertia, 0.85 gravity damping) is
+ * exactly the one of the game. The moves are a sample of what mario can do, not all of it: mario is small,
+ * holds one direction for the whole move, starts from a few run up speeds and (apart from standing jumps
+ * at the tile edges) from the middle of the tile, and never breaks bricks. Enemies and power ups are
+ * ignored apart from bouncing off stompable enemies. So a level reported as finishable can be finished with
+ * the modelled jumps if the enemies don't get in the way, while a level reported as not finishable only
+ * means that no jump in the modelled envelope reaches the exit, steering in the air or breaking bricks as
+ * big mario might still get there.
+ */
+public class MarioLevelReachability {
+    /**
+     * Returned by getTicksToExit for positions the exit can't be reached from
+     */
+    public static final int UNREACHABLE = -1;
+
+    private static final float MAX_RUN_SPEED = 9.7090909f;
+    private static final float SIDEWAYS_SPEED = 1.2f;
+    private static final int MARIO_WIDTH = 4;
+    private static final int MARIO_HEIGHT = 12;
+    private static final int MAX_TICKS = 64;
+    private static final int REPLAY_SLACK = 8;
+    private static final int AIR_REACH = 8;
+
+    // every move is a run up speed, a direction held during the whole move and the number of ticks jump is
+    // held (0 walks or falls off a ledge). They are ordered so the search tries the longest jumps to the
+    // right first, which finds the exit of most levels after expanding only a handful of tiles. The last
+    // moves bounce off an enemy standing on the tile and are only used in levels with stompable enemies
+    private static final float[] moveSpeed;
+    private static final int[] moveDirection;
+    private static final int[] moveJumpTicks;
+    private static final boolean[] moveBounce;
+    private static final int[] moveEdge;
+    private static final int NUM_WALK_MOVES;
+    private static final int ENEMY_HEIGHT = 24;
+
+    static {
+        ArrayList<float[]> moves = new ArrayList<>();
+        float[] startSpeeds = new float[]{MAX_RUN_SPEED, MAX_RUN_SPEED * 2 / 3, MAX_RUN_SPEED / 3, 0};
+        for (int dir = 1; dir >= -1; dir--) {
+            for (float startSpeed : startSpeeds) {
+                if (dir == 0 && startSpeed > 0) {
+                    continue;
+                }
+                for (int jumpTicks = 8; jumpTicks >= 0; jumpTicks--) {
+                    moves.add(new float[]{dir * startSpeed, dir, jumpTicks, 0, 0});
+                }
+            }
+        }
+        // jumps from a standstill also start from both edges of the tile, standing over the edge on one foot
+        // matters for getting around blocks right above
+        for (int offset = -1; offset <= 1; offset += 2) {
+            for (int dir = 1; dir >= -1; dir--) {
+                for (int jumpTicks = 8; jumpTicks >= 1; jumpTicks--) {
+                    moves.add(new float[]{0, dir, jumpTicks, 0, offset});
+                }
+            }
+        }
+        int numWalkMoves = moves.size();
+        for (int dir = 1; dir >= -1; dir--) {
+            for (float startSpeed : startSpeeds) {
+                if (dir == 0 && startSpeed > 0) {
+                    continue;
+                }
+                // a stomp gives a jumpTime of 8 so holding jump gives one more tick of jumping than from the ground
+                moves.add(new float[]{dir * startSpeed, dir, 9, 1, 0});
+                moves.add(new float[]{dir * startSpeed, dir, 0, 1, 0});
+            }
+        }
+        NUM_WALK_MOVES = numWalkMoves;
+        moveSpeed = new float[moves.size()];
+        moveDirection = new int[moves.size()];
+        moveJumpTicks = new int[moves.size()];
+        moveBounce = new boolean[moves.size()];
+        moveEdge = new int[moves.size()];
+        for (int i = 0; i < moves.size(); i++) {
+            moveSpeed[i] = moves.get(i)[0];
+            moveDirection[i] = (int) moves.get(i)[1];
+            moveJumpTicks[i] = (int) moves.get(i)[2];
+            moveBounce[i] = moves.get(i)[3] != 0;
+            moveEdge[i] = (int) moves.get(i)[4];
+        }
+    }
+
+    private MarioLevel level;
+    private int width;
+    private int height;
+    private boolean[] blockAll;
+    private boolean[] blockUp;
+    private boolean[] blockDown;
+    private boolean[] standable;
+    private int numMoves;
+
+    private volatile boolean[] reached;
+    private boolean exitReached;
+    private int furthestX = -1;
+
+    // ticks to the exit from every tile, only computed when asked for
+    private volatile int[] exitTicks;
+
+    // state of the simulated mario
+    private float x, y, xa, ya;
+    private boolean onGround;
+    private int jumpTime;
+
+    /**
+     * Analyze a level
+     *
+     * @param level the level to be analyzed, it is only read
+     */
+    public MarioLevelReachability(MarioLevel level) {
+        this.level = level;
+        this.width = level.tileWidth;
+        this.height = level.tileHeight;
+        int size = this.width * this.height;
+        this.blockAll = new boolean[size];
+        this.blockUp = new boolean[size];
+        this.blockDown = new boolean[size];
+        this.standable = new boolean[size];
+        // blocking flags of each tile id, looked up once per id instead of once per tile
+        int[] tileFlags = new int[256];
+        for (int x = 0; x < this.width; x++) {
+            for (int y = 0; y < this.height; y++) {
+                int tile = level.getBlock(x, y);
+                if (tileFlags[tile] == 0) {
+                    ArrayList<TileFeature> features = TileFeature.getTileType(tile);
+                    tileFlags[tile] = 1 | (features.contains(TileFeature.BLOCK_ALL) ? 2 : 0)
+                            | (features.contains(TileFeature.BLOCK_UPPER) ? 4 : 0) | (features.contains(TileFeature.BLOCK_LOWER) ? 8 : 0)
+                            | (features.contains(TileFeature.SPAWNER) ? 16 : 0);
+                }
+                int i = this.index(x, y);
+                this.blockAll[i] = (tileFlags[tile] & 2) != 0;
+                this.blockUp[i] = (tileFlags[tile] & 6) != 0;
+                this.blockDown[i] = (tileFlags[tile] & 10) != 0;
+            }
+        }
+        boolean stompable = false;
+        for (int x = 0; x < this.width; x++) {
+            for (int y = 0; y < this.height; y++) {
+                if (y < this.height - 1) {
+                    this.standable[this.index(x, y)] = !this.blockAll[this.index(x, y)] && this.blockDown[this.index(x, y + 1)];
+                }
+                SpriteType sprite = level.getSpriteType(x, y);
+                stompable |= sprite != SpriteType.NONE && sprite != SpriteType.SPIKY && sprite != SpriteType.SPIKY_WINGED
+                        && sprite != SpriteType.ENEMY_FLOWER;
+                // cannons shoot bullet bills
+                stompable |= (tileFlags[level.getBlock(x, y)] & 16) != 0;
+            }
+        }
+        this.numMoves = stompable ? moveSpeed.length : NUM_WALK_MOVES;
+    }
+
+    /**
+     * Analyze a level model
+     *
+     * @param level the level model to be analyzed, it is only read
+     */
+    public MarioLevelReachability(MarioLevelModel level) {
+        this(new MarioLevel(level, false));
+    }
+
+    private int index(int x, int y) {
+        return x * this.height + y;
+    }
+
+    /**
+     * Same as MarioLevel.isBlocking including the rule in Mario.isBlocking that the tile mario is in never blocks
+     */
+    private boolean isBlocking(float px, float py, float xa, float ya) {
+        int xTile = (int) (px / 16);
+        int yTile = (int) (py / 16);
+        if (xTile == (int) (this.x / 16) && yTile == (int) (this.y / 16)) {
+            return false;
+        }
+        if (yTile < 0 || yTile > this.height - 1) {
+            return false;
+        }
+        int i = this.index(Math.max(0, Math.min(this.width - 1, xTile)), yTile);
+        return ya < 0 ? this.blockUp[i] : (ya > 0 ? this.blockDown[i] : this.blockAll[i]);
+    }
+
+    /**
+     * Same as Mario.move for a small mario, either xa or ya is 0
+     */
+    private boolean move(float xa, float ya) {
+        while (xa > 8) {
+            if (!move(8, 0))
+                return false;
+            xa -= 8;
+        }
+        while (xa < -8) {
+            if (!move(-8, 0))
+                return false;
+            xa += 8;
+        }
+        while (ya > 8) {
+            if (!move(0, 8))
+                return false;
+            ya -= 8;
+        }
+        while (ya < -8) {
+            if (!move(0, -8))
+                return false;
+            ya += 8;
+        }
+
+        boolean collide = false;
+        if (ya > 0) {
+            collide = isBlocking(x - MARIO_WIDTH, y + ya, 0, 0) || isBlocking(x + MARIO_WIDTH, y + ya, 0, 0)
+                    || isBlocking(x - MARIO_WIDTH, y + ya + 1, 0, ya) || isBlocking(x + MARIO_WIDTH, y + ya + 1, 0, ya);
+        }
+        if (ya < 0) {
+            collide = isBlocking(x, y + ya - MARIO_HEIGHT, 0, ya) || isBlocking(x - MARIO_WIDTH, y + ya - MARIO_HEIGHT, 0, ya)
+                    || isBlocking(x + MARIO_WIDTH, y + ya - MARIO_HEIGHT, 0, ya);
+        }
+        if (xa != 0) {
+            float side = xa > 0 ? MARIO_WIDTH : -MARIO_WIDTH;
+            collide = isBlocking(x + xa + side, y - MARIO_HEIGHT, xa, 0) || isBlocking(x + xa + side, y - MARIO_HEIGHT / 2, xa, 0)
+                    || isBlocking(x + xa + side, y, xa, 0);
+        }
+        if (collide) {
+            if (xa < 0) {
+                x = (int) ((x - MARIO_WIDTH) / 16) * 16 + MARIO_WIDTH;
+                this.xa = 0;
+            }
+            if (xa > 0) {
+                x = (int) ((x + MARIO_WIDTH) / 16 + 1) * 16 - MARIO_WIDTH - 1;
+                this.xa = 0;
+            }
+            if (ya < 0) {
+                y = (int) ((y - MARIO_HEIGHT) / 16) * 16 + MARIO_HEIGHT;
+                jumpTime = 0;
+                this.ya = 0;
+            }
+            if (ya > 0) {
+                y = (int) ((y - 1) / 16 + 1) * 16 - 1;
+                onGround = true;
+            }
+            return false;
+        } else {
+            x += xa;
+            y += ya;
+            return true;
+        }
+    }
+
+    /**
+     * get the standable tile mario is on after landing, his feet might be over the edge of a tile
+     */
+    private int getLandingTile() {
+        int yTile = (int) (this.y / 16);
+        if (yTile < 0 || yTile >= this.height) {
+            return -1;
+        }
+        for (int side = -1; side <= 1; side++) {
+            int xTile = (int) ((this.x + side * MARIO_WIDTH) / 16);
+            if (xTile >= 0 && xTile < this.width && this.standable[this.index(xTile, yTile)]) {
+                return this.index(xTile, yTile);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replay a move with the Mario.update rules until mario lands on a different tile, dies or passes the exit
+     *
+     * @param startTile the tile index mario starts on, -1 if he starts in the air
+     * @param move      the move index
+     * @param landing   receives the landing tile index or -1 and the number of ticks it took to land or pass the exit
+     * @param tileTicks if not null the ticks left to the exit are written to every air tile passed on the way,
+     *                  when they are lower than what is already there
+     * @param ticksLeft the ticks to the exit from the start of the move, used with tileTicks
+     * @return true if the exit is passed on the way
+     */
+    private boolean simulateMove(int startTile, int move, int[] landing, int[] tileTicks, int ticksLeft) {
+        this.xa = moveSpeed[move];
+        boolean mayJump = this.onGround;
+        int jumpTicks = moveJumpTicks[move];
+        landing[0] = -1;
+        for (int t = 0; t < MAX_TICKS; t++) {
+            boolean jump = t < jumpTicks;
+            if (jump) {
+                if (this.onGround && mayJump) {
+                    this.jumpTime = 7;
+                    this.ya = this.jumpTime * -1.9f;
+                    this.onGround = false;
+                } else if (this.jumpTime > 0) {
+                    this.ya = this.jumpTime * -1.9f;
+                    this.jumpTime--;
+                }
+            } else {
+                this.jumpTime = 0;
+            }
+            this.xa += moveDirection[move] * SIDEWAYS_SPEED;
+            mayJump = this.onGround && !jump;
+            if (Math.abs(this.xa) < 0.5f) {
+                this.xa = 0;
+            }
+            this.onGround = false;
+            this.move(this.xa, 0);
+            this.move(0, this.ya);
+            if (this.x < 0) {
+                this.x = 0;
+                this.xa = 0;
+            }
+            if (this.x > this.level.exitTileX * 16) {
+                landing[1] = t + 1;
+                return true;
+            }
+            if (tileTicks != null) {
+                int xTile = (int) (this.x / 16);
+                int yTile = (int) (this.y / 16);
+                if (yTile >= 0 && yTile < this.height && !this.standable[this.index(xTile, yTile)]) {
+                    int i = this.index(xTile, yTile);
+                    tileTicks[i] = Math.min(tileTicks[i], ticksLeft - t - 1);
+                }
+            }
+            this.ya *= 0.85f;
+            this.xa *= 0.89f;
+            if (!this.onGround) {
+                this.ya += 3;
+            } else {
+                int tile = this.getLandingTile();
+                if (tile >= 0 && tile != startTile) {
+                    landing[0] = tile;
+                    landing[1] = t + 1;
+                    return false;
+                }
+                if (jumpTicks > 0) {
+                    // landed back where the jump started
+                    return false;
+                }
+            }
+            if (this.y > this.height * 16 + 16) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Put the simulated mario on a standable tile to start a move, bounce moves start on top of an enemy
+     *
+     * @return false if there is no room for an enemy and mario on that tile
+     */
+    private boolean placeMario(int tile, int move) {
+        int xTile = tile / this.height;
+        int yTile = tile % this.height;
+        if (moveEdge[move] != 0) {
+            int side = xTile + moveEdge[move];
+            if (side < 0 || side >= this.width || this.blockAll[this.index(side, yTile)]) {
+                return false;
+            }
+            this.placeMario(moveEdge[move] > 0 ? xTile * 16 + 15 + MARIO_WIDTH : xTile * 16 - MARIO_WIDTH, yTile * 16 + 15, true, 0);
+            return true;
+        }
+        if (!moveBounce[move]) {
+            this.placeMario(xTile * 16 + 8, yTile * 16 + 15, true, 0);
+            return true;
+        }
+        float y = yTile * 16 + 15 - ENEMY_HEIGHT;
+        for (int top = (int) ((y - MARIO_HEIGHT) / 16); top < yTile; top++) {
+            if (top >= 0 && this.blockAll[this.index(xTile, top)]) {
+                return false;
+            }
+        }
+        this.placeMario(xTile * 16 + 8, y, false, 8);
+        return true;
+    }
+
+    /**
+     * Put the simulated mario at a position, in the air he may still be in the middle of a jump
+     */
+    private void placeMario(float x, float y, boolean onGround, int jumpTime) {
+        this.x = x;
+        this.y = y;
+        this.onGround = onGround;
+        this.jumpTime = jumpTime;
+        this.ya = jumpTime * -1.9f;
+    }
+
+    private synchronized void findReachableTiles() {
+        if (this.reached != null) {
+            return;
+        }
+        boolean[] reached = new boolean[this.width * this.height];
+        this.exitReached = this.searchTiles(reached);
+        this.reached = reached;
+    }
+
+    private boolean searchTiles(boolean[] reached) {
+        int size = this.width * this.height;
+        // best first search that always continues from the right most tile found so far, each tile is
+        // expanded one move at a time so a long jump to the right is followed before the short ones are tried
+        int[] nextMove = new int[size];
+        int[][] columnStacks = new int[this.width][this.height];
+        int[] columnSizes = new int[this.width];
+        int column = -1;
+        int[] landing = new int[2];
+
+        int node = -1;
+        int move = NUM_WALK_MOVES;
+        while (true) {
+            if (node < 0) {
+                // mario starts in the air and can steer while falling to the first tile, using the walking moves
+                // without a run up
+                do {
+                    move--;
+                } while (move >= 0 && (moveSpeed[move] != 0 || moveJumpTicks[move] != 0 || moveEdge[move] != 0));
+                if (move < 0) {
+                    node = 0;
+                    continue;
+                }
+                this.placeMario(this.level.marioTileX * 16 + 8, this.level.marioTileY * 16 + 15, false, 0);
+            } else {
+                while (column >= 0 && columnSizes[column] == 0) {
+                    column -= 1;
+                }
+                if (column < 0) {
+                    return false;
+                }
+                if (column >= this.level.exitTileX) {
+                    return true;
+                }
+                node = columnStacks[column][columnSizes[column] - 1];
+                move = nextMove[node]++;
+                if (nextMove[node] >= this.numMoves) {
+                    columnSizes[column] -= 1;
+                }
+                if (!this.placeMario(node, move)) {
+                    continue;
+                }
+            }
+
+            if (this.simulateMove(node, move, landing, null, 0)) {
+                return true;
+            }
+            int target = landing[0];
+            if (target >= 0 && !reached[target]) {
+                reached[target] = true;
+                int targetX = target / this.height;
+                columnStacks[targetX][columnSizes[targetX]++] = target;
+                this.furthestX = Math.max(this.furthestX, targetX);
+                column = Math.max(column, targetX);
+            }
+        }
+    }
+
+    /**
+     * Compute the number of ticks from every tile to the exit with a backward search over the jumps between
+     * all standable tiles. Tiles in the air get the ticks of the fastest jump going through them, tiles no jump
+     * goes through use the tile under them. Air tiles over a gap get the ticks of the tile on the far side of
+     * the gap plus the ticks of running there, whether a replayed jump goes through them or not. So the low
+     * part of a landing arc is never scored as if the exit couldn't be reached from there, and a jump over a
+     * gap doesn't look better than having landed on the other side. Only tiles deep in the gap, with nothing
+     * to land on at their height or below within AIR_REACH columns, are UNREACHABLE since mario can only fall
+     * out of the level from there.
+     */
+    private synchronized void computeExitTicks() {
+        if (this.exitTicks != null) {
+            return;
+        }
+        int size = this.width * this.height;
+        int exitNode = size;
+        int[] sources = new int[1024];
+        int[] targets = new int[1024];
+        int[] costs = new int[1024];
+        int[] moves = new int[1024];
+        int numEdges = 0;
+        int[] landing = new int[2];
+        for (int node = 0; node < size; node++) {
+            if (!this.standable[node]) {
+                continue;
+            }
+            for (int move = 0; move < this.numMoves; move++) {
+                if (!this.placeMario(node, move)) {
+                    continue;
+                }
+                int target;
+                if (this.simulateMove(node, move, landing, null, 0)) {
+                    target = exitNode;
+                } else if (landing[0] >= 0) {
+                    target = landing[0];
+                } else {
+                    continue;
+                }
+                if (numEdges == sources.length) {
+                    sources = Arrays.copyOf(sources, numEdges * 2);
+                    targets = Arrays.copyOf(targets, numEdges * 2);
+                    costs = Arrays.copyOf(costs, numEdges * 2);
+                    moves = Arrays.copyOf(moves, numEdges * 2);
+                }
+                sources[numEdges] = node;
+                targets[numEdges] = target;
+                costs[numEdges] = landing[1];
+                moves[numEdges] = move;
+                numEdges++;
+            }
+        }
+
+        // edges grouped by their target so the search can walk them backwards from the exit
+        int[] reverseStart = new int[size + 2];
+        for (int e = 0; e < numEdges; e++) {
+            reverseStart[targets[e] + 1]++;
+        }
+        for (int i = 0; i < size + 1; i++) {
+            reverseStart[i + 1] += reverseStart[i];
+        }
+        int[] reverseEdges = new int[numEdges];
+        int[] fill = Arrays.copyOf(reverseStart, size + 1);
+        for (int e = 0; e < numEdges; e++) {
+            reverseEdges[fill[targets[e]]++] = e;
+        }
+
+        int[] ticks = new int[size + 1];
+        Arrays.fill(ticks, Integer.MAX_VALUE);
+        ticks[exitNode] = 0;
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        queue.add((long) exitNode);
+        while (!queue.isEmpty()) {
+            long entry = queue.poll();
+            int node = (int) entry;
+            if ((int) (entry >>> 32) > ticks[node]) {
+                continue;
+            }
+            for (int i = reverseStart[node]; i < reverseStart[node + 1]; i++) {
+                int e = reverseEdges[i];
+                int cost = ticks[node] + costs[e];
+                if (cost < ticks[sources[e]]) {
+                    ticks[sources[e]] = cost;
+                    queue.add(((long) cost << 32) | sources[e]);
+                }
+            }
+        }
+
+        // replay the jumps that are close to the fastest way from their tile to give the air tiles they go
+        // through the ticks left from there, slower jumps rarely give an air tile a lower value
+        int[] airTicks = Arrays.copyOf(ticks, size);
+        for (int e = 0; e < numEdges; e++) {
+            if (ticks[targets[e]] != Integer.MAX_VALUE && ticks[targets[e]] + costs[e] <= ticks[sources[e]] + REPLAY_SLACK) {
+                int node = sources[e];
+                this.placeMario(node, moves[e]);
+                this.simulateMove(node, moves[e], landing, airTicks, ticks[targets[e]] + costs[e]);
+            }
+        }
+
+        int[] result = new int[size];
+        for (int x = 0; x < this.width; x++) {
+            for (int y = this.height - 1; y >= 0; y--) {
+                int node = this.index(x, y);
+                if (airTicks[node] != Integer.MAX_VALUE) {
+                    result[node] = airTicks[node];
+                } else if (y < this.height - 1 && !this.blockAll[node] && result[node + 1] != UNREACHABLE) {
+                    result[node] = result[node + 1];
+                } else {
+                    result[node] = UNREACHABLE;
+                }
+            }
+        }
+        this.scoreGapAir(result);
+        this.exitTicks = result;
+    }
+
+    private void scoreGapAir(int[] result) {
+        // the lowest row mario can stand on in every column
+        int[] lowest = new int[this.width];
+        Arrays.fill(lowest, -1);
+        for (int node = 0; node < result.length; node++) {
+            if (this.standable[node]) {
+                lowest[node / this.height] = Math.max(lowest[node / this.height], node % this.height);
+            }
+        }
+        // air tiles mario falls out of the level from, nothing under them to stand on
+        boolean[] overGap = new boolean[result.length];
+        for (int x = 0; x < this.width; x++) {
+            for (int y = this.height - 1; y >= 0; y--) {
+                int node = this.index(x, y);
+                overGap[node] = !this.blockAll[node] && !this.standable[node] && (y == this.height - 1 || overGap[node + 1]);
+            }
+        }
+        // the ticks from the tile mario lands on at the far side of the gap and its column, found from the right
+        int[] edgeTicks = new int[this.height];
+        int[] edgeX = new int[this.height];
+        Arrays.fill(edgeTicks, UNREACHABLE);
+        for (int x = this.width - 1; x >= 0; x--) {
+            int landingRow = -1;
+            for (int dx = Math.max(0, x - AIR_REACH); dx <= Math.min(this.width - 1, x + AIR_REACH); dx++) {
+                landingRow = Math.max(landingRow, lowest[dx]);
+            }
+            for (int y = 0; y < this.height; y++) {
+                int node = this.index(x, y);
+                if (!overGap[node]) {
+                    edgeTicks[y] = this.landingTicks(result, x, y);
+                    edgeX[y] = x;
+                } else if (y > landingRow) {
+                    result[node] = UNREACHABLE;
+                } else if (edgeTicks[y] != UNREACHABLE) {
+                    result[node] = edgeTicks[y] + (int) Math.ceil((edgeX[y] - x) * 16 / MAX_RUN_SPEED);
+                }
+            }
+        }
+    }
+
+    private int landingTicks(int[] result, int x, int y) {
+        // the closest standable tile of the column to that height, below it first
+        for (int dy = 0; dy < this.height; dy++) {
+            if (y + dy < this.height && this.standable[this.index(x, y + dy)]) {
+                return result[this.index(x, y + dy)];
+            }
+            if (y - dy >= 0 && this.standable[this.index(x, y - dy)]) {
+                return result[this.index(x, y - dy)];
+            }
+        }
+        return UNREACHABLE;
+    }
+
+    /**
+     * get the minimum number of ticks mario needs to get from a position to the exit, following the same
+     * jumps as the reachability search. It is computed the first time it is asked for and can be read from
+     * several threads at once
+     *
+     * @param x the x position of mario in pixels
+     * @param y the y position of mario's feet in pixels
+     * @return the number of ticks from the tile at that position or UNREACHABLE
+     */
+    public int getTicksToExit(float x, float y) {
+        if (this.exitTicks == null) {
+            this.computeExitTicks();
+        }
+        int xTile = Math.max(0, Math.min(this.width - 1, (int) (x / 16)));
+        int yTile = Math.max(0, (int) (y / 16));
+        if (yTile >= this.height) {
+            return UNREACHABLE;
+        }
+        return this.exitTicks[this.index(xTile, yTile)];
+    }
+
+    /**
+     * Check if mario can get from the start to the exit of the level with the modelled moves
+     *
+     * @return false if no combination of the modelled runs and jumps gets mario to the exit, the level might
+     * still be finishable with moves outside of them
+     */
+    public boolean isExitReachable() {
+        if (this.reached == null) {
+            this.findReachableTiles();
+        }
+        return this.exitReached;
+    }
+
+    /**
+     * Check if mario can get to a certain tile, the search stops as soon as the exit is reached so tiles that
+     * weren't needed to get there might be reported as not reachable
+     *
+     * @param xTile the x tile position
+     * @param yTile the y tile position
+     * @return true if mario can stand on that tile after starting the level
+     */
+    public boolean isReachable(int xTile, int yTile) {
+        if (this.reached == null) {
+            this.findReachableTiles();
+        }
+        if (xTile < 0 || yTile < 0 || xTile >= this.width || yTile >= this.height) {
+            return false;
+        }
+        return this.reached[this.index(xTile, yTile)];
+    }
+
+    /**
+     * Check if mario can stand on a certain tile
+     *
+     * @param xTile the x tile position
+     * @param yTile the y tile position
+     * @return true if the tile is empty and the tile under it blocks from above
+     */
+    public boolean isStandable(int xTile, int yTile) {
+        if (xTile < 0 || yTile < 0 || xTile >= this.width || yTile >= this.height) {
+            return false;
+        }
+        return this.standable[this.index(xTile, yTile)];
+    }
+
+    /**
+     * get the furthest tile column mario can stand on
+     *
+     * @return the x tile position or -1 if mario falls out of the level right at the start
+     */
+    public int getFurthestReachableX() {
+        if (this.reached == null) {
+            this.findReachableTiles();
+        }
+        return this.furthestX;
+    }
+}
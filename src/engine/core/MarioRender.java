@@ -48,8 +48,8 @@ public class MarioRender extends JComponent implements FocusListener {
         drawStringDropShadow(og, "Time: " + (world.currentTimer == -1 ? "Inf" : (int) Math.ceil(world.currentTimer / 1000f)), 22, 0, 7);
         if (MarioGame.verbose) {
             String pressedButtons = "";
-            for (int i = 0; i < world.mario.actions.length; i++) {
-                if (world.mario.actions[i]) {
+            for (int i = 0; i < MarioActions.numberOfActions(); i++) {
+                if ((world.mario.actionMask & (1 << i)) != 0) {
                     pressedButtons += MarioActions.getAction(i).getString() + " ";
                 }
             }
@@ -7,9 +7,17 @@ import engine.helper.GameStatus;
 import engine.helper.SpriteType;
 
 public class MarioResult {
-    private MarioWorld world;
-    private ArrayList<MarioEvent> gameEvents;
-    private ArrayList<MarioAgentEvent> agentEvents;
+    // the final state of the world is kept instead of the world so the game can reuse it for the next game
+    private GameStatus gameStatus;
+    private float completionPercentage;
+    private int remainingTime;
+    private int marioMode;
+    private int lives;
+    private int coins;
+    private MarioEventBuffer gameEvents;
+    private ArrayList<MarioEvent> gameEventList;
+    private MarioAgentEventBuffer agentEvents;
+    private ArrayList<MarioAgentEvent> agentEventList;
 
     /**
      * Create a mario result object
@@ -18,18 +26,72 @@ public class MarioResult {
      * @param all   the events that happens in the playthrough of the game
      */
     public MarioResult(MarioWorld world, ArrayList<MarioEvent> gameEvents, ArrayList<MarioAgentEvent> agentEvents) {
-        this.world = world;
+        this.setWorld(world);
+        this.gameEvents = new MarioEventBuffer();
+        for (MarioEvent e : gameEvents) {
+            this.gameEvents.add(e.getEventType(), e.getEventParam(), e.getMarioX(), e.getMarioY(), e.getMarioState(), e.getTime());
+        }
+        this.gameEventList = gameEvents;
+        this.setAgentEvents(agentEvents);
+    }
+
+    /**
+     * Create a mario result object
+     *
+     * @param world       the current level world that is being used. This class uses the world object to get cleaner statistics.
+     * @param gameEvents  the events that happens in the playthrough of the game
+     * @param agentEvents the actions of the agent in every tick of the game
+     */
+    public MarioResult(MarioWorld world, MarioEventBuffer gameEvents, ArrayList<MarioAgentEvent> agentEvents) {
+        this.setWorld(world);
+        this.gameEvents = gameEvents;
+        this.setAgentEvents(agentEvents);
+    }
+
+    /**
+     * Create a mario result object
+     *
+     * @param world       the current level world that is being used. This class uses the world object to get cleaner statistics.
+     * @param gameEvents  the events that happens in the playthrough of the game
+     * @param agentEvents the actions of the agent in every tick of the game
+     */
+    public MarioResult(MarioWorld world, MarioEventBuffer gameEvents, MarioAgentEventBuffer agentEvents) {
+        this.setWorld(world);
         this.gameEvents = gameEvents;
         this.agentEvents = agentEvents;
     }
 
+    private void setAgentEvents(ArrayList<MarioAgentEvent> agentEvents) {
+        this.agentEvents = new MarioAgentEventBuffer();
+        for (MarioAgentEvent e : agentEvents) {
+            this.agentEvents.add(e.getActionMask(), e.getMarioX(), e.getMarioY(), e.getMarioState(),
+                    e.getMarioOnGround(), e.getTime());
+        }
+        this.agentEventList = agentEvents;
+    }
+
+    private void setWorld(MarioWorld world) {
+        this.gameStatus = world.gameStatus;
+        this.completionPercentage = world.mario.x / (world.level.exitTileX * 16);
+        this.remainingTime = world.currentTimer;
+        this.marioMode = 0;
+        if (world.mario.isLarge) {
+            this.marioMode = 1;
+        }
+        if (world.mario.isFire) {
+            this.marioMode = 2;
+        }
+        this.lives = world.lives;
+        this.coins = world.coins;
+    }
+
     /**
      * Get the current state of the running game
      *
      * @return GameStatus the current state (WIN, LOSE, TIME_OUT, RUNNING)
      */
     public GameStatus getGameStatus() {
-        return this.world.gameStatus;
+        return this.gameStatus;
     }
 
     /**
@@ -38,7 +100,7 @@ public class MarioResult {
      * @return value between 0 to 1 to indicate the percentage of distance traversed
      */
     public float getCompletionPercentage() {
-        return this.world.mario.x / (this.world.level.exitTileX * 16);
+        return this.completionPercentage;
     }
 
     /**
@@ -47,7 +109,7 @@ public class MarioResult {
      * @return the number of time ticks before timeout each frame removes 30 frames
      */
     public int getRemainingTime() {
-        return this.world.currentTimer;
+        return this.remainingTime;
     }
 
     /**
@@ -56,31 +118,41 @@ public class MarioResult {
      * @return the current mario mode (0-small, 1-large, 2-fire)
      */
     public int getMarioMode() {
-        int value = 0;
-        if (this.world.mario.isLarge) {
-            value = 1;
-        }
-        if (this.world.mario.isFire) {
-            value = 2;
-        }
-        return value;
+        return this.marioMode;
     }
 
     /**
-     * Get all the game events that happen in the game
+     * Get all the game events that happen in the game, the event objects are created on the first call
      *
      * @return an arrayList of all possible events that happened in a mario game
      */
     public ArrayList<MarioEvent> getGameEvents() {
-        return this.gameEvents;
+        if (this.gameEventList == null) {
+            this.gameEventList = this.gameEvents.toList();
+        }
+        return this.gameEventList;
     }
 
     /**
-     * Get all the actions that the agent has been taking during the game
+     * Get all the actions that the agent has been taking during the game, the event objects are created on the
+     * first call
      *
      * @return an arraylist that contains all the actions the agent has taken during game play
      */
     public ArrayList<MarioAgentEvent> getAgentEvents() {
+        if (this.agentEventList == null) {
+            this.agentEventList = this.agentEvents.toList();
+        }
+        return this.agentEventList;
+    }
+
+    /**
+     * Get all the actions that the agent has been taking during the game with the buttons packed, without
+     * creating an object per tick
+     *
+     * @return the actions of every tick of the game
+     */
+    public MarioAgentEventBuffer getAgentEventBuffer() {
         return this.agentEvents;
     }
 
@@ -91,9 +163,10 @@ public class MarioResult {
      */
     public int getKillsTotal() {
         int kills = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.STOMP_KILL.getValue() || e.getEventType() == EventType.FIRE_KILL.getValue() ||
-                    e.getEventType() == EventType.FALL_KILL.getValue() || e.getEventType() == EventType.SHELL_KILL.getValue()) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            int type = this.gameEvents.getEventType(i);
+            if (type == EventType.STOMP_KILL.getValue() || type == EventType.FIRE_KILL.getValue() ||
+                    type == EventType.FALL_KILL.getValue() || type == EventType.SHELL_KILL.getValue()) {
                 kills += 1;
             }
         }
@@ -107,8 +180,8 @@ public class MarioResult {
      */
     public int getKillsByFire() {
         int kills = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.FIRE_KILL.getValue()) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.FIRE_KILL.getValue()) {
                 kills += 1;
             }
         }
@@ -122,8 +195,8 @@ public class MarioResult {
      */
     public int getKillsByStomp() {
         int kills = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.STOMP_KILL.getValue()) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.STOMP_KILL.getValue()) {
                 kills += 1;
             }
         }
@@ -137,8 +210,8 @@ public class MarioResult {
      */
     public int getKillsByShell() {
         int kills = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.SHELL_KILL.getValue()) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.SHELL_KILL.getValue()) {
                 kills += 1;
             }
         }
@@ -153,10 +226,11 @@ public class MarioResult {
      */
     public int getMarioNumKills(int enemyType) {
         int kills = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if ((e.getEventType() == EventType.SHELL_KILL.getValue()
-                    || e.getEventType() == EventType.FIRE_KILL.getValue()
-                    || e.getEventType() == EventType.STOMP_KILL.getValue()) && e.getEventParam() == enemyType) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            int type = this.gameEvents.getEventType(i);
+            if ((type == EventType.SHELL_KILL.getValue()
+                    || type == EventType.FIRE_KILL.getValue()
+                    || type == EventType.STOMP_KILL.getValue()) && this.gameEvents.getEventParam(i) == enemyType) {
                 kills += 1;
             }
         }
@@ -170,8 +244,8 @@ public class MarioResult {
      */
     public int getMarioNumHurts() {
         int hurt = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.HURT.getValue()) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.HURT.getValue()) {
                 hurt += 1;
             }
         }
@@ -185,8 +259,8 @@ public class MarioResult {
      */
     public int getNumBumpQuestionBlock() {
         int bump = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.BUMP.getValue() && e.getEventParam() == MarioForwardModel.OBS_QUESTION_BLOCK) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.BUMP.getValue() && this.gameEvents.getEventParam(i) == MarioForwardModel.OBS_QUESTION_BLOCK) {
                 bump += 1;
             }
         }
@@ -200,8 +274,8 @@ public class MarioResult {
      */
     public int getNumBumpBrick() {
         int bump = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.BUMP.getValue() && e.getEventParam() == MarioForwardModel.OBS_BRICK) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.BUMP.getValue() && this.gameEvents.getEventParam(i) == MarioForwardModel.OBS_BRICK) {
                 bump += 1;
             }
         }
@@ -215,8 +289,8 @@ public class MarioResult {
      */
     public int getKillsByFall() {
         int kills = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.FALL_KILL.getValue()) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.FALL_KILL.getValue()) {
                 kills += 1;
             }
         }
@@ -230,8 +304,8 @@ public class MarioResult {
      */
     public int getNumJumps() {
         int jumps = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.JUMP.getValue()) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.JUMP.getValue()) {
                 jumps += 1;
             }
         }
@@ -246,13 +320,13 @@ public class MarioResult {
     public float getMaxXJump() {
         float maxXJump = 0;
         float startX = -100;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.JUMP.getValue()) {
-                startX = e.getMarioX();
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.JUMP.getValue()) {
+                startX = this.gameEvents.getMarioX(i);
             }
-            if (e.getEventType() == EventType.LAND.getValue()) {
-                if (Math.abs(e.getMarioX() - startX) > maxXJump) {
-                    maxXJump = Math.abs(e.getMarioX() - startX);
+            if (this.gameEvents.getEventType(i) == EventType.LAND.getValue()) {
+                if (Math.abs(this.gameEvents.getMarioX(i) - startX) > maxXJump) {
+                    maxXJump = Math.abs(this.gameEvents.getMarioX(i) - startX);
                 }
             }
         }
@@ -267,13 +341,13 @@ public class MarioResult {
     public int getMaxJumpAirTime() {
         int maxAirJump = 0;
         int startTime = -100;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.JUMP.getValue()) {
-                startTime = e.getTime();
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.JUMP.getValue()) {
+                startTime = this.gameEvents.getTime(i);
             }
-            if (e.getEventType() == EventType.LAND.getValue()) {
-                if (e.getTime() - startTime > maxAirJump) {
-                    maxAirJump = e.getTime() - startTime;
+            if (this.gameEvents.getEventType(i) == EventType.LAND.getValue()) {
+                if (this.gameEvents.getTime(i) - startTime > maxAirJump) {
+                    maxAirJump = this.gameEvents.getTime(i) - startTime;
                 }
             }
         }
@@ -286,7 +360,7 @@ public class MarioResult {
      * @return number of 100 coins collected by mario and 1 ups found
      */
     public int getCurrentLives() {
-        return this.world.lives;
+        return this.lives;
     }
 
     /**
@@ -295,7 +369,7 @@ public class MarioResult {
      * @return the number of coins that mario have by end of the game
      */
     public int getCurrentCoins() {
-        return this.world.coins;
+        return this.coins;
     }
 
     /**
@@ -305,8 +379,8 @@ public class MarioResult {
      */
     public int getNumCollectedMushrooms() {
         int collect = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.COLLECT.getValue() && e.getEventParam() == SpriteType.MUSHROOM.getValue()) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.COLLECT.getValue() && this.gameEvents.getEventParam(i) == SpriteType.MUSHROOM.getValue()) {
                 collect += 1;
             }
         }
@@ -320,8 +394,8 @@ public class MarioResult {
      */
     public int getNumCollectedFireflower() {
         int collect = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.COLLECT.getValue() && e.getEventParam() == SpriteType.FIRE_FLOWER.getValue()) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.COLLECT.getValue() && this.gameEvents.getEventParam(i) == SpriteType.FIRE_FLOWER.getValue()) {
                 collect += 1;
             }
         }
@@ -335,8 +409,8 @@ public class MarioResult {
      */
     public int getNumCollectedTileCoins() {
         int collect = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.COLLECT.getValue() && e.getEventParam() == MarioForwardModel.OBS_COIN) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.COLLECT.getValue() && this.gameEvents.getEventParam(i) == MarioForwardModel.OBS_COIN) {
                 collect += 1;
             }
         }
@@ -350,9 +424,9 @@ public class MarioResult {
      */
     public int getNumDestroyedBricks() {
         int bricks = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.BUMP.getValue() &&
-                    e.getEventParam() == MarioForwardModel.OBS_BRICK && e.getMarioState() > 0) {
+        for (int i = 0; i < this.gameEvents.size(); i++) {
+            if (this.gameEvents.getEventType(i) == EventType.BUMP.getValue() &&
+                    this.gameEvents.getEventParam(i) == MarioForwardModel.OBS_BRICK && this.gameEvents.getMarioState(i) > 0) {
                 bricks += 1;
             }
         }
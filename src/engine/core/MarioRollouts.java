@@ -0,0 +1,200 @@
+package engine.core;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import engine.helper.GameStatus;
+
+/**
+ * Plays a batch of action sequences from the same forward model state and reports how each of them went, for
+ * agents that score many plans per tick (rolling horizon, monte carlo). The sequences are shared between the
+ * calling thread and a pool of worker threads, every thread plays its rollouts on its own scratch forward model
+ * that is overwritten with the root state (MarioForwardModel.copyInto) instead of cloned for every rollout, the
+ * sprites of the last rollout are released so the copy reuses them.
+ *
+ * Actions are packed one int per tick using MarioActions.toMask.
+ */
+public class MarioRollouts {
+    /**
+     * How every rollout of a batch ended, index i is the sequence i of the batch. The same object can be passed
+     * to every batch so its arrays are only allocated once
+     */
+    public static class Results {
+        private int size = 0;
+        private float[] finalX = new float[0];
+        private int[] damage = new int[0];
+        private int[] ticks = new int[0];
+        private int[] ticksToExit = new int[0];
+        private GameStatus[] status = new GameStatus[0];
+
+        private void resize(int size) {
+            this.size = size;
+            if (this.finalX.length < size) {
+                this.finalX = new float[size];
+                this.damage = new int[size];
+                this.ticks = new int[size];
+                this.ticksToExit = new int[size];
+                this.status = new GameStatus[size];
+            }
+        }
+
+        /**
+         * @return the number of rollouts in the last batch
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * @param i the rollout index
+         * @return mario x position in pixels at the end of the rollout
+         */
+        public float getFinalX(int i) {
+            return this.finalX[i];
+        }
+
+        /**
+         * @param i the rollout index
+         * @return the number of power up modes mario lost during the rollout (dying is in getStatus)
+         */
+        public int getDamage(int i) {
+            return this.damage[i];
+        }
+
+        /**
+         * @param i the rollout index
+         * @return the number of ticks played before the sequence ended or the game stopped running
+         */
+        public int getTicks(int i) {
+            return this.ticks[i];
+        }
+
+        /**
+         * @param i the rollout index
+         * @return the ticks to the exit from where mario ended (see MarioForwardModel.getMarioTicksToExit)
+         */
+        public int getTicksToExit(int i) {
+            return this.ticksToExit[i];
+        }
+
+        /**
+         * @param i the rollout index
+         * @return the game status at the end of the rollout
+         */
+        public GameStatus getStatus(int i) {
+            return this.status[i];
+        }
+    }
+
+    // one pool for the whole process so objects that are dropped don't leave threads behind, idle threads stop
+    // on their own
+    private static final ExecutorService POOL = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "MarioRollouts");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ArrayList<Runnable> workers = new ArrayList<>();
+    private final MarioForwardModel[] scratch;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private MarioForwardModel root;
+    private int[][] sequences;
+    private Results results;
+
+    /**
+     * Create the rollout pool, the worker threads come from a pool shared by every MarioRollouts so nothing has
+     * to be shut down
+     *
+     * @param threads the number of threads playing rollouts including the thread calling evaluate, 1 plays
+     *                everything on the calling thread without starting any thread
+     */
+    public MarioRollouts(int threads) {
+        threads = Math.max(1, threads);
+        this.scratch = new MarioForwardModel[threads];
+        for (int i = 1; i < threads; i++) {
+            int worker = i;
+            this.workers.add(() -> this.work(worker));
+        }
+    }
+
+    /**
+     * Play every sequence from the root state, the root itself is not changed
+     *
+     * @param root      the state all the rollouts start from, it must not be advanced until this returns
+     * @param sequences the packed actions of every rollout, one int per tick
+     * @param results   object to store the results in, can be null to allocate a new one
+     * @return the results of the batch
+     */
+    public synchronized Results evaluate(MarioForwardModel root, int[][] sequences, Results results) {
+        if (results == null) {
+            results = new Results();
+        }
+        results.resize(sequences.length);
+        this.root = root;
+        this.sequences = sequences;
+        this.results = results;
+        this.next.set(0);
+
+        ArrayList<Future<?>> running = new ArrayList<>(this.workers.size());
+        for (Runnable worker : this.workers) {
+            running.add(POOL.submit(worker));
+        }
+        this.work(0);
+        try {
+            for (Future<?> f : running) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the rollouts", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A rollout failed", e.getCause());
+        } finally {
+            this.root = null;
+        }
+        return results;
+    }
+
+    private void work(int worker) {
+        int i;
+        while ((i = this.next.getAndIncrement()) < this.sequences.length) {
+            this.rollout(worker, i);
+        }
+    }
+
+    private void rollout(int worker, int index) {
+        MarioForwardModel model = this.scratch[worker];
+        if (model == null) {
+            model = this.root.clone();
+            model.setLightweight(true);
+            this.scratch[worker] = model;
+        } else {
+            // the sprites of the last rollout are reused for the copy
+            model.release();
+            this.root.copyInto(model);
+        }
+        int[] sequence = this.sequences[index];
+        int mode = model.getMarioMode();
+        int damage = 0;
+        int ticks = 0;
+        while (ticks < sequence.length && model.getGameStatus() == GameStatus.RUNNING) {
+            model.advance(sequence[ticks]);
+            ticks += 1;
+            int newMode = model.getMarioMode();
+            if (newMode < mode) {
+                damage += mode - newMode;
+            }
+            mode = newMode;
+        }
+        this.results.finalX[index] = model.getMarioFloatPos()[0];
+        this.results.damage[index] = damage;
+        this.results.ticks[index] = ticks;
+        this.results.ticksToExit[index] = model.getMarioTicksToExit();
+        this.results.status[index] = model.getGameStatus();
+    }
+}
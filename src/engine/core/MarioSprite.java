@@ -33,6 +33,175 @@ public abstract class MarioSprite {
         return null;
     }
 
+    /**
+     * Make another sprite of the same type what a clone of this sprite would be, so sprites that are thrown away
+     * can be reused for the next copies instead of cloning (see MarioWorld.release)
+     *
+     * @param sprite a sprite of the same type without visuals, it is overwritten
+     */
+    public void copyInto(MarioSprite sprite) {
+        throw new UnsupportedOperationException(this.type + " sprites can't be copied");
+    }
+
+    /**
+     * Hash of everything about the sprite that affects how the game goes on, sprites with extra state
+     * (the same state their clone copies) add it to this hash
+     *
+     * @return 64 bit hash of the sprite state
+     */
+    public long getStateHash() {
+        long hash = MarioStateHash.combine(this.type.ordinal(), this.x);
+        hash = MarioStateHash.combine(hash, this.y);
+        hash = MarioStateHash.combine(hash, this.xa);
+        hash = MarioStateHash.combine(hash, this.ya);
+        hash = MarioStateHash.combine(hash, this.width);
+        hash = MarioStateHash.combine(hash, this.height);
+        hash = MarioStateHash.combine(hash, this.facing);
+        return MarioStateHash.combine(hash, this.alive);
+    }
+
+    /**
+     * Move the sprite against the tiles of the level, the move is done in steps of at most 8 pixels and stops at
+     * the first tile the sprite hits. Every sprite that collides with tiles uses this, what differs between them
+     * is in isBlocking, stopsBefore, hitCeiling and land
+     *
+     * @param xa the horizontal move in pixels
+     * @param ya the vertical move in pixels
+     * @return true if the sprite moved all the way, false if it hit something
+     */
+    protected boolean move(float xa, float ya) {
+        while (xa > 8) {
+            if (!this.moveStep(8, 0))
+                return false;
+            xa -= 8;
+        }
+        while (xa < -8) {
+            if (!this.moveStep(-8, 0))
+                return false;
+            xa += 8;
+        }
+        while (ya > 8) {
+            if (!this.moveStep(0, 8))
+                return false;
+            ya -= 8;
+        }
+        while (ya < -8) {
+            if (!this.moveStep(0, -8))
+                return false;
+            ya += 8;
+        }
+        return this.moveStep(xa, ya);
+    }
+
+    private boolean moveStep(float xa, float ya) {
+        // the corners and middle of the sides the sprite moves towards
+        boolean collide = false;
+        if (ya > 0) {
+            if (isBlocking(x + xa - width, y + ya, xa, 0))
+                collide = true;
+            else if (isBlocking(x + xa + width, y + ya, xa, 0))
+                collide = true;
+            else if (isBlocking(x + xa - width, y + ya + 1, xa, ya))
+                collide = true;
+            else if (isBlocking(x + xa + width, y + ya + 1, xa, ya))
+                collide = true;
+        }
+        if (ya < 0) {
+            if (isBlocking(x + xa, y + ya - height, xa, ya))
+                collide = true;
+            else if (isBlocking(x + xa - width, y + ya - height, xa, ya))
+                collide = true;
+            else if (isBlocking(x + xa + width, y + ya - height, xa, ya))
+                collide = true;
+        }
+        if (xa > 0) {
+            if (isBlocking(x + xa + width, y + ya - height, xa, ya))
+                collide = true;
+            if (isBlocking(x + xa + width, y + ya - height / 2, xa, ya))
+                collide = true;
+            if (isBlocking(x + xa + width, y + ya, xa, ya))
+                collide = true;
+            if (stopsBefore(x + xa + width, xa))
+                collide = true;
+        }
+        if (xa < 0) {
+            if (isBlocking(x + xa - width, y + ya - height, xa, ya))
+                collide = true;
+            if (isBlocking(x + xa - width, y + ya - height / 2, xa, ya))
+                collide = true;
+            if (isBlocking(x + xa - width, y + ya, xa, ya))
+                collide = true;
+            if (stopsBefore(x + xa - width, xa))
+                collide = true;
+        }
+
+        if (collide) {
+            if (xa < 0) {
+                x = (int) ((x - width) / 16) * 16 + width;
+                this.xa = 0;
+            }
+            if (xa > 0) {
+                x = (int) ((x + width) / 16 + 1) * 16 - width - 1;
+                this.xa = 0;
+            }
+            if (ya < 0) {
+                y = (int) ((y - height) / 16) * 16 + height;
+                this.ya = 0;
+                this.hitCeiling();
+            }
+            if (ya > 0) {
+                this.land();
+            }
+            return false;
+        } else {
+            x += xa;
+            y += ya;
+            return true;
+        }
+    }
+
+    /**
+     * If a point the sprite moves to is in a tile that blocks that move, the tile the sprite is in never blocks
+     *
+     * @param _x the x position of the point in pixels
+     * @param _y the y position of the point in pixels
+     * @param xa the horizontal move
+     * @param ya the vertical move
+     * @return true if the move is blocked
+     */
+    protected boolean isBlocking(float _x, float _y, float xa, float ya) {
+        int xTile = (int) (_x / 16);
+        int yTile = (int) (_y / 16);
+        if (xTile == (int) (this.x / 16) && yTile == (int) (this.y / 16))
+            return false;
+
+        return world.level.isBlocking(xTile, yTile, xa, ya);
+    }
+
+    /**
+     * Lets a sprite refuse to walk somewhere even if no tile blocks it
+     *
+     * @param frontX the x position the front of the sprite moves to
+     * @param xa     the horizontal move
+     * @return true to stop the move like a wall would
+     */
+    protected boolean stopsBefore(float frontX, float xa) {
+        return false;
+    }
+
+    /**
+     * Called when a move up hit a tile, after the sprite was put under it
+     */
+    protected void hitCeiling() {
+    }
+
+    /**
+     * Put the sprite on top of the tile a move down hit
+     */
+    protected void land() {
+        y = (int) (y / 16 + 1) * 16 - 1;
+    }
+
     public void added() {
 
     }
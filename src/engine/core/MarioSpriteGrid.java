@@ -0,0 +1,142 @@
+package engine.core;
+
+import java.util.ArrayList;
+
+/**
+ * Broadphase for the sprite interactions of one world update: the sprites are filed by the tile column of their
+ * x position so a check only has to visit the sprites of the columns around it. Every interaction in the game
+ * (mario, shells, fireballs and bumps against sprites) only happens between things less than a tile apart on x,
+ * so the sprites one column left and right of a position are all the sprites that can interact with it.
+ *
+ * Sprites are stored by their index in the sprite list of the world, queries return them in list order so the
+ * interactions happen in the same order as looping over the whole list.
+ */
+class MarioSpriteGrid {
+    private int columns = 0;
+    // first sprite of every column and the next sprite in the same column, -1 ends the list
+    private int[] head = new int[0];
+    private int[] next = new int[16];
+    // the column every sprite is filed in
+    private int[] column = new int[16];
+    private int size = 0;
+
+    private int[] found = new int[16];
+    private int foundCount = 0;
+
+    private int columnOf(float x) {
+        // truncating is fine, the middle column is just wider
+        int c = (int) (x / 16);
+        if (c < 0) {
+            return 0;
+        }
+        return c >= this.columns ? this.columns - 1 : c;
+    }
+
+    /**
+     * File all the sprites from their current position
+     *
+     * @param sprites    the sprites of the world
+     * @param tileWidth the width of the level in tiles
+     */
+    void build(ArrayList<MarioSprite> sprites, int tileWidth) {
+        this.columns = Math.max(1, tileWidth);
+        if (this.head.length < this.columns) {
+            this.head = new int[this.columns];
+        }
+        for (int c = 0; c < this.columns; c++) {
+            this.head[c] = -1;
+        }
+        this.size = sprites.size();
+        if (this.next.length < this.size) {
+            this.next = new int[this.size * 2];
+            this.column = new int[this.size * 2];
+            this.found = new int[this.size * 2];
+        }
+        // filed from the back so every column list is in list order
+        for (int i = this.size - 1; i >= 0; i--) {
+            int c = this.columnOf(sprites.get(i).x);
+            this.column[i] = c;
+            this.next[i] = this.head[c];
+            this.head[c] = i;
+        }
+    }
+
+    /**
+     * Move a sprite to the column of its current position after it moved
+     *
+     * @param index the index of the sprite in the sprite list
+     * @param x     the current x position of the sprite
+     */
+    void move(int index, float x) {
+        int c = this.columnOf(x);
+        int old = this.column[index];
+        if (c == old) {
+            return;
+        }
+        if (this.head[old] == index) {
+            this.head[old] = this.next[index];
+        } else {
+            int i = this.head[old];
+            while (this.next[i] != index) {
+                i = this.next[i];
+            }
+            this.next[i] = this.next[index];
+        }
+        this.column[index] = c;
+        if (this.head[c] == -1 || this.head[c] > index) {
+            this.next[index] = this.head[c];
+            this.head[c] = index;
+        } else {
+            int i = this.head[c];
+            while (this.next[i] != -1 && this.next[i] < index) {
+                i = this.next[i];
+            }
+            this.next[index] = this.next[i];
+            this.next[i] = index;
+        }
+    }
+
+    /**
+     * Find the sprites that are within one column of a position, get them with getFound
+     *
+     * @param x the x position in pixels
+     * @return the number of sprites found
+     */
+    int query(float x) {
+        int c = this.columnOf(x);
+        // merge the three column lists, they are all in list order
+        int a = c > 0 ? this.head[c - 1] : -1;
+        int b = this.head[c];
+        int d = c < this.columns - 1 ? this.head[c + 1] : -1;
+        this.foundCount = 0;
+        while (a != -1 || b != -1 || d != -1) {
+            int min = Integer.MAX_VALUE;
+            if (a != -1) {
+                min = a;
+            }
+            if (b != -1 && b < min) {
+                min = b;
+            }
+            if (d != -1 && d < min) {
+                min = d;
+            }
+            this.found[this.foundCount++] = min;
+            if (min == a) {
+                a = this.next[a];
+            } else if (min == b) {
+                b = this.next[b];
+            } else {
+                d = this.next[d];
+            }
+        }
+        return this.foundCount;
+    }
+
+    /**
+     * @param i the index in the last query result
+     * @return the index in the sprite list of that sprite
+     */
+    int getFound(int i) {
+        return this.found[i];
+    }
+}
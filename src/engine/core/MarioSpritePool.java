@@ -0,0 +1,69 @@
+package engine.core;
+
+import java.util.Arrays;
+
+import engine.helper.SpriteType;
+
+/**
+ * Sprites given back by released worlds (MarioWorld.release), kept by sprite type for every thread. The copies of
+ * worlds made on the same thread overwrite them with MarioSprite.copyInto instead of cloning new sprites, so
+ * searches that throw away many worlds don't keep allocating sprites. Each thread only touches its own pool so
+ * nothing is locked, and nothing is pooled unless worlds are released.
+ */
+class MarioSpritePool {
+    // more free sprites than that of one type are left to the garbage collector
+    private static final int MAX_FREE = 1024;
+    private static final ThreadLocal<MarioSpritePool> POOLS = ThreadLocal.withInitial(MarioSpritePool::new);
+
+    private final MarioSprite[][] free = new MarioSprite[SpriteType.values().length][];
+    private final int[] size = new int[SpriteType.values().length];
+
+    private MarioSpritePool() {
+        for (int t = 0; t < this.free.length; t++) {
+            this.free[t] = new MarioSprite[8];
+        }
+    }
+
+    /**
+     * @return the pool of the current thread
+     */
+    static MarioSpritePool get() {
+        return POOLS.get();
+    }
+
+    /**
+     * Copy a sprite into a free sprite of the same type, or clone it if there is none
+     *
+     * @param sprite the sprite to copy
+     * @return a copy that is the same as a clone of the sprite
+     */
+    MarioSprite copy(MarioSprite sprite) {
+        int t = sprite.type.ordinal();
+        if (this.size[t] == 0) {
+            return sprite.clone();
+        }
+        this.size[t] -= 1;
+        MarioSprite copy = this.free[t][this.size[t]];
+        this.free[t][this.size[t]] = null;
+        sprite.copyInto(copy);
+        return copy;
+    }
+
+    /**
+     * Keep a sprite for the next copies, it must not be used anywhere else after that
+     *
+     * @param sprite a sprite without visuals
+     */
+    void release(MarioSprite sprite) {
+        int t = sprite.type.ordinal();
+        if (this.size[t] == MAX_FREE) {
+            return;
+        }
+        if (this.size[t] == this.free[t].length) {
+            this.free[t] = Arrays.copyOf(this.free[t], this.size[t] * 2);
+        }
+        sprite.world = null;
+        this.free[t][this.size[t]] = sprite;
+        this.size[t] += 1;
+    }
+}
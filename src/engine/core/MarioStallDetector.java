@@ -0,0 +1,51 @@
+package engine.core;
+
+/**
+ * Early exit that ends the game when mario stops making progress, either standing still, walking back
+ * and forth or being stuck in front of something he can't pass.
+ */
+public class MarioStallDetector implements MarioEarlyExit {
+    private int maxStallTicks;
+    private float minProgress;
+
+    private float maxX = -1;
+    private int stallTicks = 0;
+
+    /**
+     * Create a stall detector
+     *
+     * @param maxStallTicks number of ticks mario is allowed to go without reaching a new furthest x position
+     */
+    public MarioStallDetector(int maxStallTicks) {
+        this(maxStallTicks, 1);
+    }
+
+    /**
+     * Create a stall detector
+     *
+     * @param maxStallTicks number of ticks mario is allowed to go without reaching a new furthest x position
+     * @param minProgress   the number of pixels mario has to pass the old furthest position by to count as progress
+     */
+    public MarioStallDetector(int maxStallTicks, float minProgress) {
+        this.maxStallTicks = maxStallTicks;
+        this.minProgress = minProgress;
+    }
+
+    @Override
+    public void start(MarioForwardModel model) {
+        this.maxX = -1;
+        this.stallTicks = 0;
+    }
+
+    @Override
+    public boolean shouldExit(MarioForwardModel model) {
+        float x = model.getMarioFloatPos()[0];
+        if (x >= this.maxX + this.minProgress || this.maxX < 0) {
+            this.maxX = x;
+            this.stallTicks = 0;
+            return false;
+        }
+        this.stallTicks += 1;
+        return this.stallTicks > this.maxStallTicks;
+    }
+}
@@ -0,0 +1,43 @@
+package engine.core;
+
+/**
+ * 64 bit hashing helpers used to build the state hash of the world (see MarioWorld.getStateHash). Two states with
+ * the same hash are treated as the same state, so every value that changes how the game goes on has to be mixed in.
+ */
+public final class MarioStateHash {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private MarioStateHash() {
+    }
+
+    /**
+     * Scramble the bits of a value (the finalizer of splitmix64)
+     *
+     * @param value the value to scramble
+     * @return a well distributed 64 bit value
+     */
+    public static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Add a value to a hash, the order in which values are added matters
+     *
+     * @param hash  the hash so far
+     * @param value the value to add
+     * @return the new hash
+     */
+    public static long combine(long hash, long value) {
+        return mix(hash * GOLDEN_GAMMA + value);
+    }
+
+    public static long combine(long hash, float value) {
+        return combine(hash, Float.floatToIntBits(value));
+    }
+
+    public static long combine(long hash, boolean value) {
+        return combine(hash, value ? 1 : 0);
+    }
+}
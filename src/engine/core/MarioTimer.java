@@ -1,22 +1,64 @@
 package engine.core;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Mario timer object used to control the agents so they won't exceed the allowed time.
  *
+ * The timer either measures wall clock time or, for comparing agents independently of the machine, runs on a
+ * budget of forward model work (see budget): the forward models the agent gets with it count every tick they are
+ * advanced and every copy they make, and the remaining time goes down as that budget is spent.
+ *
  * @author AhmedKhalifa
  */
 public class MarioTimer {
     private long startTimer;
     private long remainingTime;
 
+    // budget mode: the ticks and copies the agent may use for this decision, 0 means no limit on that one
+    private final long tickBudget;
+    private final long cloneBudget;
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong clones = new AtomicLong();
+
     /**
      * Start a timer
      *
      * @param remainingTime the amount of milliseconds before the timer runs out
      */
     public MarioTimer(long remainingTime) {
-        this.startTimer = System.currentTimeMillis();
+        this(remainingTime, 0, 0);
+    }
+
+    private MarioTimer(long remainingTime, long tickBudget, long cloneBudget) {
+        this.startTimer = System.nanoTime();
         this.remainingTime = remainingTime;
+        this.tickBudget = Math.max(0, tickBudget);
+        this.cloneBudget = Math.max(0, cloneBudget);
+    }
+
+    /**
+     * Start a timer that runs on forward model work instead of wall clock time. The remaining time goes from
+     * remainingTime down to 0 in proportion to the part of the budget that is spent, so agents that stop when
+     * the time runs out do the same amount of simulation on any machine and under any load
+     *
+     * @param remainingTime the amount of milliseconds the timer reports when nothing is spent yet
+     * @param tickBudget    the number of forward model ticks (advance) the agent may simulate, 0 for no limit
+     * @param cloneBudget   the number of forward model copies (clone, copyInto) the agent may make, 0 for no limit
+     * @return the timer
+     */
+    public static MarioTimer budget(long remainingTime, long tickBudget, long cloneBudget) {
+        if (tickBudget <= 0 && cloneBudget <= 0) {
+            throw new IllegalArgumentException("A budget timer needs a tick or a clone budget");
+        }
+        return new MarioTimer(remainingTime, tickBudget, cloneBudget);
+    }
+
+    /**
+     * @return true if the timer counts forward model work instead of wall clock time
+     */
+    public boolean isBudget() {
+        return this.tickBudget > 0 || this.cloneBudget > 0;
     }
 
     /**
@@ -25,6 +67,68 @@ public class MarioTimer {
      * @return number of milliseconds remaining in that timer.
      */
     public long getRemainingTime() {
-        return Math.max(0, this.remainingTime - (System.currentTimeMillis() - this.startTimer));
+        if (this.isBudget()) {
+            return (long) Math.ceil(this.remainingTime * this.getRemainingBudget());
+        }
+        return Math.max(0, this.remainingTime - (System.nanoTime() - this.startTimer) / 1000000);
+    }
+
+    /**
+     * Get the remaining time in that timer since construction with the resolution of System.nanoTime
+     *
+     * @return number of nanoseconds remaining in that timer.
+     */
+    public long getRemainingNanos() {
+        if (this.isBudget()) {
+            return (long) Math.ceil(this.remainingTime * 1000000.0 * this.getRemainingBudget());
+        }
+        return Math.max(0, this.remainingTime * 1000000 - (System.nanoTime() - this.startTimer));
+    }
+
+    /**
+     * @return the part of the budget that is left between 0 and 1, the smallest of the tick and clone budgets.
+     * Always 1 for wall clock timers
+     */
+    public double getRemainingBudget() {
+        double left = 1;
+        if (this.tickBudget > 0) {
+            left = Math.min(left, 1 - (double) this.ticks.get() / this.tickBudget);
+        }
+        if (this.cloneBudget > 0) {
+            left = Math.min(left, 1 - (double) this.clones.get() / this.cloneBudget);
+        }
+        return Math.max(0, left);
+    }
+
+    /**
+     * @return the number of forward model ticks simulated with this timer, only counted by budget timers
+     */
+    public long getTicksUsed() {
+        return this.ticks.get();
+    }
+
+    /**
+     * @return the number of forward model copies made with this timer, only counted by budget timers
+     */
+    public long getClonesUsed() {
+        return this.clones.get();
+    }
+
+    /**
+     * Start the timer again with nothing spent, a game with a budget reuses one timer for all the decisions of the
+     * agent so the models the agent keeps from an earlier decision count against the current one
+     */
+    void restart() {
+        this.startTimer = System.nanoTime();
+        this.ticks.set(0);
+        this.clones.set(0);
+    }
+
+    void countTick() {
+        this.ticks.incrementAndGet();
+    }
+
+    void countClone() {
+        this.clones.incrementAndGet();
     }
 }
@@ -0,0 +1,109 @@
+package engine.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size table from state hashes (MarioForwardModel.getStateHash) to a long value, like the node id or the
+ * score a search found for that state. It never grows: a new entry replaces whatever was in its slot, so a lookup
+ * can miss a state that was stored before.
+ *
+ * The table can be shared by many search threads without locks. Every slot holds the value and the hash xor the
+ * value, so a slot that is half written by another thread doesn't match any hash and reads as a miss.
+ */
+public class MarioTranspositionTable {
+    private final AtomicLongArray slots;
+    private final int mask;
+
+    /**
+     * Create an empty table
+     *
+     * @param capacity the number of entries, rounded up to a power of two
+     */
+    public MarioTranspositionTable(int capacity) {
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicLongArray(2 * size);
+        this.mask = size - 1;
+    }
+
+    private int slot(long hash) {
+        return 2 * ((int) (hash ^ (hash >>> 32)) & this.mask);
+    }
+
+    /**
+     * Get the value stored for a state
+     *
+     * @param hash         the state hash
+     * @param missingValue what to return if the state is not in the table
+     * @return the stored value or missingValue
+     */
+    public long get(long hash, long missingValue) {
+        int slot = this.slot(hash);
+        long check = this.slots.get(slot);
+        long value = this.slots.get(slot + 1);
+        // an empty slot (both 0) only matches hash 0 with value 0, which is never stored
+        if ((check ^ value) != hash || (check | value) == 0) {
+            return missingValue;
+        }
+        return value;
+    }
+
+    /**
+     * Check if a state is in the table
+     *
+     * @param hash the state hash
+     * @return true if the state was stored and not replaced since
+     */
+    public boolean contains(long hash) {
+        int slot = this.slot(hash);
+        long check = this.slots.get(slot);
+        long value = this.slots.get(slot + 1);
+        return (check ^ value) == hash && (check | value) != 0;
+    }
+
+    /**
+     * Store a value for a state, replacing the entry that used the same slot before
+     *
+     * @param hash  the state hash
+     * @param value the value to store
+     */
+    public void put(long hash, long value) {
+        int slot = this.slot(hash);
+        this.slots.set(slot, hash ^ value);
+        this.slots.set(slot + 1, value);
+    }
+
+    /**
+     * Store a value for a state only if the state is not already in the table with that same value. Searches can
+     * use it to drop a state they already reached, storing an id of the search as the value so entries from older
+     * searches don't have to be cleared. Two threads adding the same state at the same time might both succeed.
+     *
+     * @param hash  the state hash
+     * @param value the value to store
+     * @return true if the value was stored and false if the table already had it
+     */
+    public boolean putIfDifferent(long hash, long value) {
+        if (this.get(hash, ~value) == value) {
+            return false;
+        }
+        this.put(hash, value);
+        return true;
+    }
+
+    /**
+     * Remove all the entries
+     */
+    public void clear() {
+        for (int i = 0; i < this.slots.length(); i++) {
+            this.slots.set(i, 0);
+        }
+    }
+
+    /**
+     * get the number of entries the table can hold
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return this.mask + 1;
+    }
+}
@@ -3,11 +3,13 @@ package engine.core;
 import java.awt.Graphics;
 import java.awt.GraphicsConfiguration;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import engine.effects.*;
 import engine.graphics.MarioBackground;
 import engine.helper.EventType;
 import engine.helper.GameStatus;
+import engine.helper.MarioActions;
 import engine.helper.SpriteType;
 import engine.helper.TileFeature;
 import engine.sprites.*;
@@ -25,14 +27,28 @@ public class MarioWorld {
     public int currentTick;
     //Status
     public int coins, lives;
-    public ArrayList<MarioEvent> lastFrameEvents;
+    public MarioEventBuffer lastFrameEvents;
+    // lightweight forward models get the events counted directly instead of through lastFrameEvents
+    MarioForwardModel eventCounter;
 
     private MarioEvent[] killEvents;
+    // the kill events as bits over the event types: the types that kill whatever their param is and the types
+    // that only kill for some params, listed as (type, param) pairs in killParams
+    private int killAnyParamTypes;
+    private int killParamTypes;
+    private int[] killParams;
+    // bits of the event types added since the frame started and if a kill event with a param was added
+    private int frameEventTypes;
+    private boolean killParamHappened;
     private ArrayList<MarioSprite> sprites;
     private ArrayList<Shell> shellsToCheck;
     private ArrayList<Fireball> fireballsToCheck;
     private ArrayList<MarioSprite> addedSprites;
     private ArrayList<MarioSprite> removedSprites;
+    // sprites by tile column while update runs, updatingSprite is the index of the sprite in its update call
+    private MarioSpriteGrid grid = new MarioSpriteGrid();
+    private int updatingSprite = -1;
+    private boolean gridReady = false;
 
     private ArrayList<MarioEffect> effects;
 
@@ -47,8 +63,28 @@ public class MarioWorld {
         this.addedSprites = new ArrayList<>();
         this.removedSprites = new ArrayList<>();
         this.effects = new ArrayList<>();
-        this.lastFrameEvents = new ArrayList<>();
+        this.lastFrameEvents = new MarioEventBuffer();
+        this.setKillEvents(killEvents);
+    }
+
+    private void setKillEvents(MarioEvent[] killEvents) {
         this.killEvents = killEvents;
+        this.killAnyParamTypes = 0;
+        this.killParamTypes = 0;
+        this.killParams = new int[0];
+        if (killEvents == null) {
+            return;
+        }
+        for (MarioEvent k : killEvents) {
+            if (k.getEventParam() == 0) {
+                this.killAnyParamTypes |= 1 << k.getEventType();
+            } else {
+                this.killParamTypes |= 1 << k.getEventType();
+                this.killParams = Arrays.copyOf(this.killParams, this.killParams.length + 2);
+                this.killParams[this.killParams.length - 2] = k.getEventType();
+                this.killParams[this.killParams.length - 1] = k.getEventParam();
+            }
+        }
     }
 
     public void initializeVisuals(GraphicsConfiguration graphicsConfig) {
@@ -86,8 +122,17 @@ public class MarioWorld {
     }
 
     public void initializeLevel(String level, int timer) {
+        this.initializeLevel(new MarioLevel(level, this.visuals), timer);
+    }
+
+    public void initializeLevel(MarioLevelModel level, int timer) {
+        this.initializeLevel(new MarioLevel(level, this.visuals), timer);
+    }
+
+    private void initializeLevel(MarioLevel level, int timer) {
         this.currentTimer = timer;
-        this.level = new MarioLevel(level, this.visuals);
+        this.level = level;
+        this.level.reachability = new MarioLevelReachability(level);
 
         this.mario = new Mario(this.visuals, this.level.marioTileX * 16, this.level.marioTileY * 16);
         this.mario.alive = true;
@@ -95,18 +140,73 @@ public class MarioWorld {
         this.sprites.add(this.mario);
     }
 
+    /**
+     * Start this world again from a template world, usually one that was initialized and never updated. Unlike
+     * creating and initializing a new world the level is not parsed again and the arrays and lists of this world
+     * are reused, like in copyInto the visuals are not kept
+     *
+     * @param template the world to start from, it is not changed
+     */
+    public void reset(MarioWorld template) {
+        template.copyInto(this);
+        this.eventCounter = null;
+    }
+
     public ArrayList<MarioSprite> getEnemies() {
         ArrayList<MarioSprite> enemies = new ArrayList<>();
         for (MarioSprite sprite : sprites) {
-            if (this.isEnemy(sprite)) {
+            if (sprite.type.isEnemy()) {
                 enemies.add(sprite);
             }
         }
         return enemies;
     }
 
+    int getEnemyCount() {
+        int count = 0;
+        for (int i = 0; i < this.sprites.size(); i++) {
+            if (this.sprites.get(i).type.isEnemy()) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    int fillEnemiesFloatPos(float[] buffer) {
+        int count = 0;
+        for (int i = 0; i < this.sprites.size(); i++) {
+            MarioSprite sprite = this.sprites.get(i);
+            if (!sprite.type.isEnemy()) {
+                continue;
+            }
+            if (3 * count + 2 < buffer.length) {
+                buffer[3 * count] = sprite.type.getValue();
+                buffer[3 * count + 1] = sprite.x;
+                buffer[3 * count + 2] = sprite.y;
+            }
+            count += 1;
+        }
+        return count;
+    }
+
     public MarioWorld clone() {
-        MarioWorld world = new MarioWorld(this.killEvents);
+        // copyInto sets the kill events, no need to compile them again
+        MarioWorld world = new MarioWorld(null);
+        this.copyInto(world);
+        return world;
+    }
+
+    /**
+     * Make another world a copy of this one without the visuals. The level arrays and lists of the other world are
+     * reused, so copying into the same world again and again (like for rollouts) doesn't reallocate them
+     *
+     * @param world the world that will be overwritten
+     */
+    public void copyInto(MarioWorld world) {
+        world.killEvents = this.killEvents;
+        world.killAnyParamTypes = this.killAnyParamTypes;
+        world.killParamTypes = this.killParamTypes;
+        world.killParams = this.killParams;
         world.visuals = false;
         world.cameraX = this.cameraX;
         world.cameraY = this.cameraY;
@@ -115,9 +215,24 @@ public class MarioWorld {
         world.pauseTimer = this.pauseTimer;
         world.currentTimer = this.currentTimer;
         world.currentTick = this.currentTick;
-        world.level = this.level.clone();
-        for (MarioSprite sprite : this.sprites) {
-            MarioSprite cloneSprite = sprite.clone();
+        if (world.level == null) {
+            world.level = this.level.clone();
+        } else {
+            this.level.copyInto(world.level);
+        }
+        world.mario = null;
+        world.sprites.clear();
+        world.shellsToCheck.clear();
+        world.fireballsToCheck.clear();
+        world.addedSprites.clear();
+        world.removedSprites.clear();
+        world.effects.clear();
+        world.lastFrameEvents.clear();
+        world.frameEventTypes = 0;
+        world.killParamHappened = false;
+        MarioSpritePool pool = MarioSpritePool.get();
+        for (int i = 0; i < this.sprites.size(); i++) {
+            MarioSprite cloneSprite = pool.copy(this.sprites.get(i));
             cloneSprite.world = world;
             if (cloneSprite.type == SpriteType.MARIO) {
                 world.mario = (Mario) cloneSprite;
@@ -125,15 +240,69 @@ public class MarioWorld {
             world.sprites.add(cloneSprite);
         }
         if (world.mario == null) {
-            world.mario = (Mario) this.mario.clone();
+            world.mario = (Mario) pool.copy(this.mario);
         }
         //stats
         world.coins = this.coins;
         world.lives = this.lives;
-        return world;
+    }
+
+    /**
+     * Give the sprites of this world to the sprite pool of the current thread, the copies of worlds made after that
+     * on the same thread (clone, copyInto) reuse them instead of allocating new ones. The world has no sprites
+     * after that and can only be used again once a world is copied into it. Worlds with visuals are not released
+     */
+    public void release() {
+        if (this.visuals) {
+            return;
+        }
+        MarioSpritePool pool = MarioSpritePool.get();
+        boolean marioReleased = false;
+        for (int i = 0; i < this.sprites.size(); i++) {
+            MarioSprite sprite = this.sprites.get(i);
+            marioReleased |= sprite == this.mario;
+            pool.release(sprite);
+        }
+        if (this.mario != null && !marioReleased) {
+            pool.release(this.mario);
+        }
+        this.sprites.clear();
+        this.mario = null;
+    }
+
+    /**
+     * Hash of the whole simulation state: timers, camera, mario, every sprite in update order and the changed
+     * tiles of the level. Equal hashes mean the next updates will play out the same for the same actions (up to
+     * hash collisions). The events of the last frame and the visuals are not part of it
+     *
+     * @return 64 bit hash of the world state
+     */
+    public long getStateHash() {
+        long hash = MarioStateHash.combine(this.level.getChangesHash(), this.gameStatus.ordinal());
+        hash = MarioStateHash.combine(hash, this.pauseTimer);
+        hash = MarioStateHash.combine(hash, this.fireballsOnScreen);
+        hash = MarioStateHash.combine(hash, this.currentTimer);
+        hash = MarioStateHash.combine(hash, this.currentTick);
+        hash = MarioStateHash.combine(hash, this.cameraX);
+        hash = MarioStateHash.combine(hash, this.cameraY);
+        hash = MarioStateHash.combine(hash, this.coins);
+        hash = MarioStateHash.combine(hash, this.lives);
+        for (MarioSprite sprite : this.sprites) {
+            hash = MarioStateHash.combine(hash, sprite.getStateHash());
+        }
+        return hash;
     }
 
     public void addEvent(EventType eventType, int eventParam) {
+        int type = eventType.getValue();
+        this.frameEventTypes |= 1 << type;
+        if ((this.killParamTypes & (1 << type)) != 0) {
+            for (int i = 0; i < this.killParams.length; i += 2) {
+                if (this.killParams[i] == type && this.killParams[i + 1] == eventParam) {
+                    this.killParamHappened = true;
+                }
+            }
+        }
         int marioState = 0;
         if (this.mario.isLarge) {
             marioState = 1;
@@ -141,7 +310,11 @@ public class MarioWorld {
         if (this.mario.isFire) {
             marioState = 2;
         }
-        this.lastFrameEvents.add(new MarioEvent(eventType, eventParam, mario.x, mario.y, marioState, this.currentTick));
+        if (this.eventCounter != null) {
+            this.eventCounter.countEvent(type, eventParam, marioState);
+            return;
+        }
+        this.lastFrameEvents.add(type, eventParam, mario.x, mario.y, marioState, this.currentTick);
     }
 
     public void addEffect(MarioEffect effect) {
@@ -286,11 +459,45 @@ public class MarioWorld {
         return ret;
     }
 
-    private boolean isEnemy(MarioSprite sprite) {
-        return sprite instanceof Enemy || sprite instanceof FlowerEnemy || sprite instanceof BulletBill;
+    private int spawnDirection(int x) {
+        if (x * 16 + 8 > mario.x + 16)
+            return -1;
+        if (x * 16 + 8 < mario.x - 16)
+            return 1;
+        return 0;
+    }
+
+    private void spawnTemplate(int i, int dir) {
+        // the enemy of a template is spawned again when it is back on screen after being gone for a tick
+        String spriteCode = this.level.getSpawnCode(i);
+        boolean found = false;
+        for (MarioSprite sprite : sprites) {
+            if (sprite.initialCode.equals(spriteCode)) {
+                found = true;
+                break;
+            }
+        }
+        if (!found) {
+            if (this.level.getSpawnTick(i) != this.currentTick - 1) {
+                MarioSprite sprite = this.level.getSpawnType(i).spawnSprite(this.visuals, this.level.getSpawnX(i),
+                        this.level.getSpawnY(i), dir);
+                sprite.initialCode = spriteCode;
+                this.addSprite(sprite);
+            }
+        }
+        this.level.setSpawnTick(i, this.currentTick);
     }
 
     public void update(boolean[] actions) {
+        this.update(MarioActions.toMask(actions));
+    }
+
+    /**
+     * Play one tick of the game
+     *
+     * @param actionMask the buttons held this tick packed with MarioActions.toMask
+     */
+    public void update(int actionMask) {
         if (this.gameStatus != GameStatus.RUNNING) {
             return;
         }
@@ -327,6 +534,8 @@ public class MarioWorld {
         }
 
         this.lastFrameEvents.clear();
+        this.frameEventTypes = 0;
+        this.killParamHappened = false;
 
         this.fireballsOnScreen = 0;
         for (MarioSprite sprite : sprites) {
@@ -335,7 +544,7 @@ public class MarioWorld {
                     this.lose();
                 }
                 this.removeSprite(sprite);
-                if (this.isEnemy(sprite) && sprite.y > MarioGame.height + 32) {
+                if (sprite.type.isEnemy() && sprite.y > MarioGame.height + 32) {
                     this.addEvent(EventType.FALL_KILL, sprite.type.getValue());
                 }
                 continue;
@@ -346,53 +555,64 @@ public class MarioWorld {
         }
         this.level.update((int) cameraX, (int) cameraY);
 
-        for (int x = (int) cameraX / 16 - 1; x <= (int) (cameraX + MarioGame.width) / 16 + 1; x++) {
-            for (int y = (int) cameraY / 16 - 1; y <= (int) (cameraY + MarioGame.height) / 16 + 1; y++) {
-                int dir = 0;
-                if (x * 16 + 8 > mario.x + 16)
-                    dir = -1;
-                if (x * 16 + 8 < mario.x - 16)
-                    dir = 1;
-
-                SpriteType type = level.getSpriteType(x, y);
-                if (type != SpriteType.NONE) {
-                    String spriteCode = level.getSpriteCode(x, y);
-                    boolean found = false;
-                    for (MarioSprite sprite : sprites) {
-                        if (sprite.initialCode.equals(spriteCode)) {
-                            found = true;
-                            break;
-                        }
+        int xMin = (int) cameraX / 16 - 1;
+        int xMax = (int) (cameraX + MarioGame.width) / 16 + 1;
+        int yMin = (int) cameraY / 16 - 1;
+        int yMax = (int) (cameraY + MarioGame.height) / 16 + 1;
+        if (this.currentTick % 100 == 0) {
+            // bullet bills only fire on these ticks, scan every tile so they spawn in the same order as the enemies
+            int i = this.level.findSpawn(xMin);
+            int count = this.level.getSpawnCount();
+            for (int x = xMin; x <= xMax; x++) {
+                for (int y = yMin; y <= yMax; y++) {
+                    int dir = this.spawnDirection(x);
+                    while (i < count && (this.level.getSpawnX(i) < x
+                            || this.level.getSpawnX(i) == x && this.level.getSpawnY(i) < y)) {
+                        i++;
                     }
-                    if (!found) {
-                        if (this.level.getLastSpawnTick(x, y) != this.currentTick - 1) {
-                            MarioSprite sprite = type.spawnSprite(this.visuals, x, y, dir);
-                            sprite.initialCode = spriteCode;
-                            this.addSprite(sprite);
-                        }
+                    if (i < count && this.level.getSpawnX(i) == x && this.level.getSpawnY(i) == y) {
+                        this.spawnTemplate(i, dir);
                     }
-                    this.level.setLastSpawnTick(x, y, this.currentTick);
-                }
 
-                if (dir != 0) {
-                    ArrayList<TileFeature> features = TileFeature.getTileType(this.level.getBlock(x, y));
-                    if (features.contains(TileFeature.SPAWNER)) {
-                        if (this.currentTick % 100 == 0) {
+                    if (dir != 0) {
+                        ArrayList<TileFeature> features = TileFeature.getTileType(this.level.getBlock(x, y));
+                        if (features.contains(TileFeature.SPAWNER)) {
                             addSprite(new BulletBill(this.visuals, x * 16 + 8 + dir * 8, y * 16 + 15, dir));
                         }
                     }
                 }
             }
+        } else {
+            // only the enemy templates in the camera window, they are sorted by column then row like the scan above
+            for (int i = this.level.findSpawn(xMin); i < this.level.getSpawnCount(); i++) {
+                int x = this.level.getSpawnX(i);
+                if (x > xMax) {
+                    break;
+                }
+                int y = this.level.getSpawnY(i);
+                if (y >= yMin && y <= yMax) {
+                    this.spawnTemplate(i, this.spawnDirection(x));
+                }
+            }
         }
 
-        this.mario.actions = actions;
-        for (MarioSprite sprite : sprites) {
+        this.mario.actionMask = actionMask;
+        this.grid.build(this.sprites, this.level.tileWidth);
+        this.gridReady = true;
+        for (int i = 0; i < this.sprites.size(); i++) {
+            MarioSprite sprite = this.sprites.get(i);
             if (!sprite.alive) {
                 continue;
             }
+            this.updatingSprite = i;
             sprite.update();
+            this.grid.move(i, sprite.x);
         }
-        for (MarioSprite sprite : sprites) {
+        this.updatingSprite = -1;
+        // sprites only collide with mario when they are less than a tile away on x, and nothing moves from here on
+        int count = this.grid.query(this.mario.x);
+        for (int i = 0; i < count; i++) {
+            MarioSprite sprite = this.sprites.get(this.grid.getFound(i));
             if (!sprite.alive) {
                 continue;
             }
@@ -400,7 +620,9 @@ public class MarioWorld {
         }
 
         for (Shell shell : shellsToCheck) {
-            for (MarioSprite sprite : sprites) {
+            count = this.grid.query(shell.x);
+            for (int i = 0; i < count; i++) {
+                MarioSprite sprite = this.sprites.get(this.grid.getFound(i));
                 if (sprite != shell && shell.alive && sprite.alive) {
                     if (sprite.shellCollideCheck(shell)) {
                         this.removeSprite(sprite);
@@ -411,7 +633,9 @@ public class MarioWorld {
         shellsToCheck.clear();
 
         for (Fireball fireball : fireballsToCheck) {
-            for (MarioSprite sprite : sprites) {
+            count = this.grid.query(fireball.x);
+            for (int i = 0; i < count; i++) {
+                MarioSprite sprite = this.sprites.get(this.grid.getFound(i));
                 if (sprite != fireball && fireball.alive && sprite.alive) {
                     if (sprite.fireballCollideCheck(fireball)) {
                         if (this.visuals) {
@@ -423,6 +647,7 @@ public class MarioWorld {
             }
         }
         fireballsToCheck.clear();
+        this.gridReady = false;
 
         sprites.addAll(0, addedSprites);
         sprites.removeAll(removedSprites);
@@ -430,12 +655,8 @@ public class MarioWorld {
         removedSprites.clear();
 
         //punishing forward model
-        if (this.killEvents != null) {
-            for (MarioEvent k : this.killEvents) {
-                if (this.lastFrameEvents.contains(k)) {
-                    this.lose();
-                }
-            }
+        if ((this.frameEventTypes & this.killAnyParamTypes) != 0 || this.killParamHappened) {
+            this.lose();
         }
     }
 
@@ -495,8 +716,19 @@ public class MarioWorld {
             }
         }
 
-        for (MarioSprite sprite : sprites) {
-            sprite.bumpCheck(xTile, yTile);
+        if (!this.gridReady) {
+            for (MarioSprite sprite : sprites) {
+                sprite.bumpCheck(xTile, yTile);
+            }
+            return;
+        }
+        if (this.updatingSprite >= 0) {
+            // the sprite bumping might have moved since it was filed
+            this.grid.move(this.updatingSprite, this.sprites.get(this.updatingSprite).x);
+        }
+        int count = this.grid.query(xTile * 16 + 8);
+        for (int i = 0; i < count; i++) {
+            this.sprites.get(this.grid.getFound(i)).bumpCheck(xTile, yTile);
         }
     }
 
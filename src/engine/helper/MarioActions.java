@@ -30,4 +30,34 @@ public enum MarioActions {
     public static MarioActions getAction(int value) {
         return MarioActions.values()[value];
     }
+
+    /**
+     * Pack a button array into an int where bit i is the button with value i
+     *
+     * @param actions the button states
+     * @return the packed buttons
+     */
+    public static int toMask(boolean[] actions) {
+        int mask = 0;
+        for (int i = 0; i < actions.length; i++) {
+            if (actions[i]) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Unpack buttons packed with toMask into an existing array
+     *
+     * @param mask    the packed buttons
+     * @param actions the array to fill, has to have numberOfActions() elements
+     * @return the filled array
+     */
+    public static boolean[] fromMask(int mask, boolean[] actions) {
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = (mask & (1 << i)) != 0;
+        }
+        return actions;
+    }
 }
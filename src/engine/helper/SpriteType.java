@@ -27,6 +27,7 @@ public enum SpriteType {
 
     private int value;
     private int startIndex;
+    private boolean enemy;
 
     SpriteType(int newValue) {
         value = newValue;
@@ -35,6 +36,7 @@ public enum SpriteType {
     SpriteType(int newValue, int newIndex) {
         value = newValue;
         startIndex = newIndex;
+        enemy = true;
     }
 
     public int getValue() {
@@ -45,6 +47,15 @@ public enum SpriteType {
         return startIndex;
     }
 
+    /**
+     * Check if sprites of this type are enemies (the walking enemies, the flower and bullet bill)
+     *
+     * @return true for the enemy types
+     */
+    public boolean isEnemy() {
+        return enemy;
+    }
+
     public MarioSprite spawnSprite(boolean visuals, int xTile, int yTile, int dir) {
         if (this == SpriteType.ENEMY_FLOWER) {
             return new FlowerEnemy(visuals, xTile * 16 + 17, yTile * 16 + 18);
@@ -14,6 +14,37 @@ public enum TileFeature {
     ANIMATED,
     SPAWNER;
 
+    // the features of every tile value as bits, for the checks that run on every move
+    private static final int[] MASKS = new int[256];
+
+    static {
+        for (int i = 0; i < MASKS.length; i++) {
+            for (TileFeature f : getTileType(i)) {
+                MASKS[i] |= f.getMask();
+            }
+        }
+    }
+
+    /**
+     * @return the bit of this feature in the masks of getTileMask
+     */
+    public int getMask() {
+        return 1 << this.ordinal();
+    }
+
+    /**
+     * Same features as getTileType without allocating a list
+     *
+     * @param index the tile value
+     * @return the features of the tile as an or of their getMask bits
+     */
+    public static int getTileMask(int index) {
+        if (index < 0 || index >= MASKS.length) {
+            return 0;
+        }
+        return MASKS[index];
+    }
+
     public static ArrayList<TileFeature> getTileType(int index) {
         ArrayList<TileFeature> features = new ArrayList<>();
         switch (index) {
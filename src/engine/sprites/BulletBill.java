@@ -30,13 +30,24 @@ public class BulletBill extends MarioSprite {
     @Override
     public MarioSprite clone() {
         BulletBill sprite = new BulletBill(false, x, y, this.facing);
-        sprite.xa = this.xa;
-        sprite.ya = this.ya;
-        sprite.width = this.width;
-        sprite.height = this.height;
+        this.copyInto(sprite);
         return sprite;
     }
 
+    @Override
+    public void copyInto(MarioSprite sprite) {
+        BulletBill b = (BulletBill) sprite;
+        b.x = this.x;
+        b.y = this.y;
+        b.xa = this.xa;
+        b.ya = this.ya;
+        b.width = this.width;
+        b.height = this.height;
+        b.facing = this.facing;
+        b.initialCode = "";
+        b.alive = true;
+    }
+
     @Override
     public void update() {
         if (!this.alive) {
@@ -81,7 +92,9 @@ public class BulletBill extends MarioSprite {
         }
     }
 
-    private boolean move(float xa, float ya) {
+    @Override
+    protected boolean move(float xa, float ya) {
+        // bullet bills fly through the tiles
         x += xa;
         return true;
     }
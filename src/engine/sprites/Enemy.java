@@ -3,6 +3,7 @@ package engine.sprites;
 import java.awt.Graphics;
 
 import engine.core.MarioSprite;
+import engine.core.MarioStateHash;
 import engine.effects.DeathEffect;
 import engine.effects.SquishEffect;
 import engine.graphics.MarioImage;
@@ -56,16 +57,38 @@ public class Enemy extends MarioSprite {
     @Override
     public MarioSprite clone() {
         Enemy e = new Enemy(false, this.x, this.y, this.facing, this.type);
+        this.copyInto(e);
+        return e;
+    }
+
+    @Override
+    public void copyInto(MarioSprite sprite) {
+        Enemy e = (Enemy) sprite;
+        e.type = this.type;
+        e.x = this.x;
+        e.y = this.y;
         e.xa = this.xa;
         e.ya = this.ya;
+        e.facing = this.facing == 0 ? 1 : this.facing;
         e.initialCode = this.initialCode;
         e.width = this.width;
         e.height = this.height;
+        e.alive = true;
         e.onGround = this.onGround;
         e.winged = this.winged;
         e.avoidCliffs = this.avoidCliffs;
         e.noFireballDeath = this.noFireballDeath;
-        return e;
+        e.runTime = 0;
+        e.wingTime = 0;
+    }
+
+    @Override
+    public long getStateHash() {
+        long hash = super.getStateHash();
+        hash = MarioStateHash.combine(hash, this.onGround);
+        hash = MarioStateHash.combine(hash, this.winged);
+        hash = MarioStateHash.combine(hash, this.avoidCliffs);
+        return MarioStateHash.combine(hash, this.noFireballDeath);
     }
 
     public void collideCheck() {
@@ -166,106 +189,16 @@ public class Enemy extends MarioSprite {
         }
     }
 
-    private boolean move(float xa, float ya) {
-        while (xa > 8) {
-            if (!move(8, 0))
-                return false;
-            xa -= 8;
-        }
-        while (xa < -8) {
-            if (!move(-8, 0))
-                return false;
-            xa += 8;
-        }
-        while (ya > 8) {
-            if (!move(0, 8))
-                return false;
-            ya -= 8;
-        }
-        while (ya < -8) {
-            if (!move(0, -8))
-                return false;
-            ya += 8;
-        }
-
-        boolean collide = false;
-        if (ya > 0) {
-            if (isBlocking(x + xa - width, y + ya, xa, 0))
-                collide = true;
-            else if (isBlocking(x + xa + width, y + ya, xa, 0))
-                collide = true;
-            else if (isBlocking(x + xa - width, y + ya + 1, xa, ya))
-                collide = true;
-            else if (isBlocking(x + xa + width, y + ya + 1, xa, ya))
-                collide = true;
-        }
-        if (ya < 0) {
-            if (isBlocking(x + xa, y + ya - height, xa, ya))
-                collide = true;
-            else if (collide || isBlocking(x + xa - width, y + ya - height, xa, ya))
-                collide = true;
-            else if (collide || isBlocking(x + xa + width, y + ya - height, xa, ya))
-                collide = true;
-        }
-        if (xa > 0) {
-            if (isBlocking(x + xa + width, y + ya - height, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa + width, y + ya - height / 2, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa + width, y + ya, xa, ya))
-                collide = true;
-
-            if (avoidCliffs && onGround
-                    && !world.level.isBlocking((int) ((x + xa + width) / 16), (int) ((y) / 16 + 1), xa, 1))
-                collide = true;
-        }
-        if (xa < 0) {
-            if (isBlocking(x + xa - width, y + ya - height, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa - width, y + ya - height / 2, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa - width, y + ya, xa, ya))
-                collide = true;
-
-            if (avoidCliffs && onGround
-                    && !world.level.isBlocking((int) ((x + xa - width) / 16), (int) ((y) / 16 + 1), xa, 1))
-                collide = true;
-        }
-
-        if (collide) {
-            if (xa < 0) {
-                x = (int) ((x - width) / 16) * 16 + width;
-                this.xa = 0;
-            }
-            if (xa > 0) {
-                x = (int) ((x + width) / 16 + 1) * 16 - width - 1;
-                this.xa = 0;
-            }
-            if (ya < 0) {
-                y = (int) ((y - height) / 16) * 16 + height;
-                this.ya = 0;
-            }
-            if (ya > 0) {
-                y = (int) (y / 16 + 1) * 16 - 1;
-                onGround = true;
-            }
-            return false;
-        } else {
-            x += xa;
-            y += ya;
-            return true;
-        }
+    @Override
+    protected void land() {
+        super.land();
+        onGround = true;
     }
 
-    private boolean isBlocking(float _x, float _y, float xa, float ya) {
-        int x = (int) (_x / 16);
-        int y = (int) (_y / 16);
-        if (x == (int) (this.x / 16) && y == (int) (this.y / 16))
-            return false;
-
-        boolean blocking = world.level.isBlocking(x, y, xa, ya);
-
-        return blocking;
+    @Override
+    protected boolean stopsBefore(float frontX, float xa) {
+        // enemies that avoid cliffs turn around at the edge of what they walk on
+        return avoidCliffs && onGround && !world.level.isBlocking((int) (frontX / 16), (int) (y / 16 + 1), xa, 1);
     }
 
     public boolean shellCollideCheck(Shell shell) {
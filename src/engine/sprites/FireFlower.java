@@ -3,6 +3,7 @@ package engine.sprites;
 import java.awt.Graphics;
 
 import engine.core.MarioSprite;
+import engine.core.MarioStateHash;
 import engine.graphics.MarioImage;
 import engine.helper.Assets;
 import engine.helper.EventType;
@@ -30,14 +31,29 @@ public class FireFlower extends MarioSprite {
     @Override
     public MarioSprite clone() {
         FireFlower f = new FireFlower(false, x, y);
+        this.copyInto(f);
+        return f;
+    }
+
+    @Override
+    public void copyInto(MarioSprite sprite) {
+        FireFlower f = (FireFlower) sprite;
+        f.x = this.x;
+        f.y = this.y;
         f.xa = this.xa;
         f.ya = this.ya;
         f.initialCode = this.initialCode;
         f.width = this.width;
         f.height = this.height;
         f.facing = this.facing;
+        f.alive = true;
         f.life = this.life;
-        return f;
+    }
+
+    @Override
+    public long getStateHash() {
+        long hash = super.getStateHash();
+        return MarioStateHash.combine(hash, this.life);
     }
 
     @Override
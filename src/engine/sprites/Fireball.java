@@ -3,6 +3,7 @@ package engine.sprites;
 import java.awt.Graphics;
 
 import engine.core.MarioSprite;
+import engine.core.MarioStateHash;
 import engine.graphics.MarioImage;
 import engine.helper.Assets;
 import engine.helper.SpriteType;
@@ -35,107 +36,36 @@ public class Fireball extends MarioSprite {
     @Override
     public MarioSprite clone() {
         Fireball f = new Fireball(false, this.x, this.y, this.facing);
+        this.copyInto(f);
+        return f;
+    }
+
+    @Override
+    public void copyInto(MarioSprite sprite) {
+        Fireball f = (Fireball) sprite;
+        f.x = this.x;
+        f.y = this.y;
         f.xa = this.xa;
         f.ya = this.ya;
+        f.facing = this.facing;
         f.initialCode = this.initialCode;
         f.width = this.width;
         f.height = this.height;
+        f.alive = true;
         f.onGround = this.onGround;
-        return f;
+        f.anim = 0;
     }
 
-    private boolean move(float xa, float ya) {
-        while (xa > 8) {
-            if (!move(8, 0))
-                return false;
-            xa -= 8;
-        }
-        while (xa < -8) {
-            if (!move(-8, 0))
-                return false;
-            xa += 8;
-        }
-        while (ya > 8) {
-            if (!move(0, 8))
-                return false;
-            ya -= 8;
-        }
-        while (ya < -8) {
-            if (!move(0, -8))
-                return false;
-            ya += 8;
-        }
-
-        boolean collide = false;
-        if (ya > 0) {
-            if (isBlocking(x + xa - width, y + ya, xa, 0))
-                collide = true;
-            else if (isBlocking(x + xa + width, y + ya, xa, 0))
-                collide = true;
-            else if (isBlocking(x + xa - width, y + ya + 1, xa, ya))
-                collide = true;
-            else if (isBlocking(x + xa + width, y + ya + 1, xa, ya))
-                collide = true;
-        }
-        if (ya < 0) {
-            if (isBlocking(x + xa, y + ya - height, xa, ya))
-                collide = true;
-            else if (collide || isBlocking(x + xa - width, y + ya - height, xa, ya))
-                collide = true;
-            else if (collide || isBlocking(x + xa + width, y + ya - height, xa, ya))
-                collide = true;
-        }
-        if (xa > 0) {
-            if (isBlocking(x + xa + width, y + ya - height, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa + width, y + ya - height / 2, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa + width, y + ya, xa, ya))
-                collide = true;
-        }
-        if (xa < 0) {
-            if (isBlocking(x + xa - width, y + ya - height, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa - width, y + ya - height / 2, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa - width, y + ya, xa, ya))
-                collide = true;
-        }
-
-        if (collide) {
-            if (xa < 0) {
-                x = (int) ((x - width) / 16) * 16 + width;
-                this.xa = 0;
-            }
-            if (xa > 0) {
-                x = (int) ((x + width) / 16 + 1) * 16 - width - 1;
-                this.xa = 0;
-            }
-            if (ya < 0) {
-                y = (int) ((y - height) / 16) * 16 + height;
-                this.ya = 0;
-            }
-            if (ya > 0) {
-                y = (int) (y / 16 + 1) * 16 - 1;
-                onGround = true;
-            }
-            return false;
-        } else {
-            x += xa;
-            y += ya;
-            return true;
-        }
+    @Override
+    public long getStateHash() {
+        long hash = super.getStateHash();
+        return MarioStateHash.combine(hash, this.onGround);
     }
 
-    private boolean isBlocking(float _x, float _y, float xa, float ya) {
-        int x = (int) (_x / 16);
-        int y = (int) (_y / 16);
-        if (x == (int) (this.x / 16) && y == (int) (this.y / 16))
-            return false;
-
-        boolean blocking = world.level.isBlocking(x, y, xa, ya);
-
-        return blocking;
+    @Override
+    protected void land() {
+        super.land();
+        onGround = true;
     }
 
     @Override
@@ -1,6 +1,7 @@
 package engine.sprites;
 
 import engine.core.MarioSprite;
+import engine.core.MarioStateHash;
 import engine.helper.SpriteType;
 
 public class FlowerEnemy extends Enemy {
@@ -28,20 +29,28 @@ public class FlowerEnemy extends Enemy {
     @Override
     public MarioSprite clone() {
         FlowerEnemy sprite = new FlowerEnemy(false, this.x, this.y);
-        sprite.xa = this.xa;
-        sprite.ya = this.ya;
-        sprite.initialCode = this.initialCode;
-        sprite.width = this.width;
-        sprite.height = this.height;
-        sprite.onGround = this.onGround;
-        sprite.winged = this.winged;
-        sprite.avoidCliffs = this.avoidCliffs;
-        sprite.noFireballDeath = this.noFireballDeath;
-        sprite.yStart = yStart;
-        sprite.waitTime = waitTime;
+        this.copyInto(sprite);
         return sprite;
     }
 
+    @Override
+    public void copyInto(MarioSprite sprite) {
+        // the constructor moved the flower out of the pipe, the copy puts it back where this one is
+        super.copyInto(sprite);
+        FlowerEnemy f = (FlowerEnemy) sprite;
+        f.facing = 1;
+        f.yStart = this.yStart;
+        f.waitTime = this.waitTime;
+        f.tick = 0;
+    }
+
+    @Override
+    public long getStateHash() {
+        long hash = super.getStateHash();
+        hash = MarioStateHash.combine(hash, this.yStart);
+        return MarioStateHash.combine(hash, this.waitTime);
+    }
+
     @Override
     public void update() {
         if (!this.alive) {
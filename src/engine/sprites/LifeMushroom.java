@@ -3,6 +3,7 @@ package engine.sprites;
 import java.awt.Graphics;
 
 import engine.core.MarioSprite;
+import engine.core.MarioStateHash;
 import engine.graphics.MarioImage;
 import engine.helper.Assets;
 import engine.helper.EventType;
@@ -35,15 +36,31 @@ public class LifeMushroom extends MarioSprite {
     @Override
     public MarioSprite clone() {
         LifeMushroom m = new LifeMushroom(false, this.x, this.y);
+        this.copyInto(m);
+        return m;
+    }
+
+    @Override
+    public void copyInto(MarioSprite sprite) {
+        LifeMushroom m = (LifeMushroom) sprite;
+        m.x = this.x;
+        m.y = this.y;
         m.xa = this.xa;
         m.ya = this.ya;
         m.initialCode = this.initialCode;
         m.width = this.width;
         m.height = this.height;
         m.facing = this.facing;
+        m.alive = true;
         m.life = this.life;
         m.onGround = this.onGround;
-        return m;
+    }
+
+    @Override
+    public long getStateHash() {
+        long hash = super.getStateHash();
+        hash = MarioStateHash.combine(hash, this.life);
+        return MarioStateHash.combine(hash, this.onGround);
     }
 
     public void collideCheck() {
@@ -62,16 +79,6 @@ public class LifeMushroom extends MarioSprite {
         }
     }
 
-    private boolean isBlocking(float _x, float _y, float xa, float ya) {
-        int x = (int) (_x / 16);
-        int y = (int) (_y / 16);
-        if (x == (int) (this.x / 16) && y == (int) (this.y / 16))
-            return false;
-
-        boolean blocking = world.level.isBlocking(x, y, xa, ya);
-        return blocking;
-    }
-
     public void bumpCheck(int xTile, int yTile) {
         if (!this.alive) {
             return;
@@ -83,87 +90,10 @@ public class LifeMushroom extends MarioSprite {
         }
     }
 
-    private boolean move(float xa, float ya) {
-        while (xa > 8) {
-            if (!move(8, 0))
-                return false;
-            xa -= 8;
-        }
-        while (xa < -8) {
-            if (!move(-8, 0))
-                return false;
-            xa += 8;
-        }
-        while (ya > 8) {
-            if (!move(0, 8))
-                return false;
-            ya -= 8;
-        }
-        while (ya < -8) {
-            if (!move(0, -8))
-                return false;
-            ya += 8;
-        }
-
-        boolean collide = false;
-        if (ya > 0) {
-            if (isBlocking(x + xa - width, y + ya, xa, 0))
-                collide = true;
-            else if (isBlocking(x + xa + width, y + ya, xa, 0))
-                collide = true;
-            else if (isBlocking(x + xa - width, y + ya + 1, xa, ya))
-                collide = true;
-            else if (isBlocking(x + xa + width, y + ya + 1, xa, ya))
-                collide = true;
-        }
-        if (ya < 0) {
-            if (isBlocking(x + xa, y + ya - height, xa, ya))
-                collide = true;
-            else if (collide || isBlocking(x + xa - width, y + ya - height, xa, ya))
-                collide = true;
-            else if (collide || isBlocking(x + xa + width, y + ya - height, xa, ya))
-                collide = true;
-        }
-        if (xa > 0) {
-            if (isBlocking(x + xa + width, y + ya - height, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa + width, y + ya - height / 2, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa + width, y + ya, xa, ya))
-                collide = true;
-        }
-        if (xa < 0) {
-            if (isBlocking(x + xa - width, y + ya - height, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa - width, y + ya - height / 2, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa - width, y + ya, xa, ya))
-                collide = true;
-        }
-
-        if (collide) {
-            if (xa < 0) {
-                x = (int) ((x - width) / 16) * 16 + width;
-                this.xa = 0;
-            }
-            if (xa > 0) {
-                x = (int) ((x + width) / 16 + 1) * 16 - width - 1;
-                this.xa = 0;
-            }
-            if (ya < 0) {
-                y = (int) ((y - height) / 16) * 16 + height;
-                this.ya = 0;
-            }
-            if (ya > 0) {
-                y = (int) (y / 16 + 1) * 16 - 1;
-                onGround = true;
-            }
-            return false;
-        } else {
-            x += xa;
-            y += ya;
-            return true;
-        }
+    @Override
+    protected void land() {
+        super.land();
+        onGround = true;
     }
 
     @Override
@@ -3,6 +3,7 @@ package engine.sprites;
 import java.awt.Graphics;
 
 import engine.core.MarioSprite;
+import engine.core.MarioStateHash;
 import engine.graphics.MarioImage;
 import engine.helper.Assets;
 import engine.helper.EventType;
@@ -13,7 +14,8 @@ import engine.helper.TileFeature;
 public class Mario extends MarioSprite {
     public boolean isLarge, isFire;
     public boolean onGround, wasOnGround, isDucking, canShoot, mayJump;
-    public boolean[] actions = null;
+    // the buttons held this tick packed with MarioActions.toMask
+    public int actionMask = 0;
     public int jumpTime = 0;
 
     private float xJumpSpeed, yJumpSpeed = 0;
@@ -44,115 +46,71 @@ public class Mario extends MarioSprite {
     @Override
     public MarioSprite clone() {
         Mario sprite = new Mario(false, x - 8, y - 15);
-        sprite.xa = this.xa;
-        sprite.ya = this.ya;
-        sprite.initialCode = this.initialCode;
-        sprite.width = this.width;
-        sprite.height = this.height;
-        sprite.facing = this.facing;
-        sprite.isLarge = isLarge;
-        sprite.isFire = isFire;
-        sprite.wasOnGround = wasOnGround;
-        sprite.onGround = onGround;
-        sprite.isDucking = isDucking;
-        sprite.canShoot = canShoot;
-        sprite.mayJump = mayJump;
-        sprite.actions = new boolean[this.actions.length];
-        for (int i = 0; i < this.actions.length; i++) {
-            sprite.actions[i] = this.actions[i];
-        }
-        sprite.xJumpSpeed = xJumpSpeed;
-        sprite.yJumpSpeed = yJumpSpeed;
-        sprite.invulnerableTime = invulnerableTime;
-        sprite.jumpTime = jumpTime;
-        sprite.xJumpStart = xJumpStart;
+        this.copyInto(sprite);
         return sprite;
     }
 
-    private boolean move(float xa, float ya) {
-        while (xa > 8) {
-            if (!move(8, 0))
-                return false;
-            xa -= 8;
-        }
-        while (xa < -8) {
-            if (!move(-8, 0))
-                return false;
-            xa += 8;
-        }
-        while (ya > 8) {
-            if (!move(0, 8))
-                return false;
-            ya -= 8;
-        }
-        while (ya < -8) {
-            if (!move(0, -8))
-                return false;
-            ya += 8;
-        }
-
-        boolean collide = false;
-        if (ya > 0) {
-            if (isBlocking(x + xa - width, y + ya, xa, 0))
-                collide = true;
-            else if (isBlocking(x + xa + width, y + ya, xa, 0))
-                collide = true;
-            else if (isBlocking(x + xa - width, y + ya + 1, xa, ya))
-                collide = true;
-            else if (isBlocking(x + xa + width, y + ya + 1, xa, ya))
-                collide = true;
-        }
-        if (ya < 0) {
-            if (isBlocking(x + xa, y + ya - height, xa, ya))
-                collide = true;
-            else if (collide || isBlocking(x + xa - width, y + ya - height, xa, ya))
-                collide = true;
-            else if (collide || isBlocking(x + xa + width, y + ya - height, xa, ya))
-                collide = true;
-        }
-        if (xa > 0) {
-            if (isBlocking(x + xa + width, y + ya - height, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa + width, y + ya - height / 2, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa + width, y + ya, xa, ya))
-                collide = true;
-        }
-        if (xa < 0) {
-            if (isBlocking(x + xa - width, y + ya - height, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa - width, y + ya - height / 2, xa, ya))
-                collide = true;
-            if (isBlocking(x + xa - width, y + ya, xa, ya))
-                collide = true;
-        }
-        if (collide) {
-            if (xa < 0) {
-                x = (int) ((x - width) / 16) * 16 + width;
-                this.xa = 0;
-            }
-            if (xa > 0) {
-                x = (int) ((x + width) / 16 + 1) * 16 - width - 1;
-                this.xa = 0;
-            }
-            if (ya < 0) {
-                y = (int) ((y - height) / 16) * 16 + height;
-                jumpTime = 0;
-                this.ya = 0;
-            }
-            if (ya > 0) {
-                y = (int) ((y - 1) / 16 + 1) * 16 - 1;
-                onGround = true;
-            }
-            return false;
-        } else {
-            x += xa;
-            y += ya;
-            return true;
-        }
+    @Override
+    public void copyInto(MarioSprite sprite) {
+        Mario m = (Mario) sprite;
+        // rounded like going through the constructor, that adds the offsets back
+        m.x = this.x - 8 + 8;
+        m.y = this.y - 15 + 15;
+        m.xa = this.xa;
+        m.ya = this.ya;
+        m.initialCode = this.initialCode;
+        m.width = this.width;
+        m.height = this.height;
+        m.facing = this.facing;
+        m.alive = true;
+        m.isLarge = isLarge;
+        m.isFire = isFire;
+        m.oldLarge = false;
+        m.oldFire = false;
+        m.wasOnGround = wasOnGround;
+        m.onGround = onGround;
+        m.isDucking = isDucking;
+        m.canShoot = canShoot;
+        m.mayJump = mayJump;
+        m.actionMask = actionMask;
+        m.xJumpSpeed = xJumpSpeed;
+        m.yJumpSpeed = yJumpSpeed;
+        m.invulnerableTime = invulnerableTime;
+        m.jumpTime = jumpTime;
+        m.marioFrameSpeed = 0;
+        m.xJumpStart = xJumpStart;
+    }
+
+    @Override
+    public long getStateHash() {
+        // the actions are left out, they are replaced at the start of every update
+        long hash = super.getStateHash();
+        hash = MarioStateHash.combine(hash, this.isLarge);
+        hash = MarioStateHash.combine(hash, this.isFire);
+        hash = MarioStateHash.combine(hash, this.onGround);
+        hash = MarioStateHash.combine(hash, this.wasOnGround);
+        hash = MarioStateHash.combine(hash, this.isDucking);
+        hash = MarioStateHash.combine(hash, this.canShoot);
+        hash = MarioStateHash.combine(hash, this.mayJump);
+        hash = MarioStateHash.combine(hash, this.jumpTime);
+        hash = MarioStateHash.combine(hash, this.xJumpSpeed);
+        hash = MarioStateHash.combine(hash, this.yJumpSpeed);
+        return MarioStateHash.combine(hash, this.invulnerableTime);
+    }
+
+    @Override
+    protected void hitCeiling() {
+        jumpTime = 0;
+    }
+
+    @Override
+    protected void land() {
+        y = (int) ((y - 1) / 16 + 1) * 16 - 1;
+        onGround = true;
     }
 
-    private boolean isBlocking(float _x, float _y, float xa, float ya) {
+    @Override
+    protected boolean isBlocking(float _x, float _y, float xa, float ya) {
         int xTile = (int) (_x / 16);
         int yTile = (int) (_y / 16);
         if (xTile == (int) (this.x / 16) && yTile == (int) (this.y / 16))
@@ -161,7 +119,7 @@ public class Mario extends MarioSprite {
         boolean blocking = world.level.isBlocking(xTile, yTile, xa, ya);
         int block = world.level.getBlock(xTile, yTile);
 
-        if (TileFeature.getTileType(block).contains(TileFeature.PICKABLE)) {
+        if ((TileFeature.getTileMask(block) & TileFeature.PICKABLE.getMask()) != 0) {
             this.world.addEvent(EventType.COLLECT, block);
             this.collectCoin();
             world.level.setBlock(xTile, yTile, 0);
@@ -246,6 +204,10 @@ public class Mario extends MarioSprite {
         graphics.index = frameIndex;
     }
 
+    private boolean isPressed(MarioActions button) {
+        return (this.actionMask & (1 << button.getValue())) != 0;
+    }
+
     @Override
     public void update() {
         if (!this.alive) {
@@ -257,10 +219,10 @@ public class Mario extends MarioSprite {
         }
         this.wasOnGround = this.onGround;
 
-        float sideWaysSpeed = actions[MarioActions.SPEED.getValue()] ? 1.2f : 0.6f;
+        float sideWaysSpeed = this.isPressed(MarioActions.SPEED) ? 1.2f : 0.6f;
 
         if (onGround) {
-            isDucking = actions[MarioActions.DOWN.getValue()] && isLarge;
+            isDucking = this.isPressed(MarioActions.DOWN) && isLarge;
         }
 
         if (isLarge) {
@@ -276,7 +238,7 @@ public class Mario extends MarioSprite {
             facing = -1;
         }
 
-        if (actions[MarioActions.JUMP.getValue()] || (jumpTime < 0 && !onGround)) {
+        if (this.isPressed(MarioActions.JUMP) || (jumpTime < 0 && !onGround)) {
             if (jumpTime < 0) {
                 xa = xJumpSpeed;
                 ya = -jumpTime * yJumpSpeed;
@@ -301,25 +263,25 @@ public class Mario extends MarioSprite {
             jumpTime = 0;
         }
 
-        if (actions[MarioActions.LEFT.getValue()] && !isDucking) {
+        if (this.isPressed(MarioActions.LEFT) && !isDucking) {
             xa -= sideWaysSpeed;
             if (jumpTime >= 0)
                 facing = -1;
         }
 
-        if (actions[MarioActions.RIGHT.getValue()] && !isDucking) {
+        if (this.isPressed(MarioActions.RIGHT) && !isDucking) {
             xa += sideWaysSpeed;
             if (jumpTime >= 0)
                 facing = 1;
         }
 
-        if (actions[MarioActions.SPEED.getValue()] && canShoot && isFire && world.fireballsOnScreen < 2) {
+        if (this.isPressed(MarioActions.SPEED) && canShoot && isFire && world.fireballsOnScreen < 2) {
             world.addSprite(new Fireball(this.graphics != null, x + facing * 6, y - 20, facing));
         }
 
-        canShoot = !actions[MarioActions.SPEED.getValue()];
+        canShoot = !this.isPressed(MarioActions.SPEED);
 
-        mayJump = onGround && !actions[MarioActions.JUMP.getValue()];
+        mayJump = onGround && !this.isPressed(MarioActions.JUMP);
 
         if (Math.abs(xa) < 0.5f) {
             xa = 0;
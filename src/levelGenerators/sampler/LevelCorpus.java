@@ -0,0 +1,98 @@
+package levelGenerators.sampler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import engine.core.MarioLevelModel;
+
+/**
+ * Parsed copy of all the levels in a folder, stored as columns of characters so slices can be copied
+ * straight into a level model. Each folder is read once and the result is shared by every sampler
+ * generator on every thread, it is never modified after loading.
+ */
+public class LevelCorpus {
+    private static final ConcurrentHashMap<String, LevelCorpus> corpora = new ConcurrentHashMap<>();
+
+    // levels[level][x][y]
+    private char[][][] levels;
+
+    /**
+     * Get the corpus for a folder, loading it the first time it is requested
+     *
+     * @param folderName the folder that contains the level files
+     * @return the shared corpus for that folder
+     */
+    public static LevelCorpus getCorpus(String folderName) {
+        return corpora.computeIfAbsent(new File(folderName).getAbsolutePath(), (path) -> {
+            try {
+                return new LevelCorpus(new File(path));
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't load the levels in " + folderName, e);
+            }
+        });
+    }
+
+    private LevelCorpus(File folder) throws IOException {
+        File[] listOfFiles = folder.listFiles();
+        if (listOfFiles == null || listOfFiles.length == 0) {
+            throw new IOException("No levels found in " + folder);
+        }
+        Arrays.sort(listOfFiles);
+        this.levels = new char[listOfFiles.length][][];
+        for (int i = 0; i < listOfFiles.length; i++) {
+            List<String> lines = Files.readAllLines(listOfFiles[i].toPath());
+            while (lines.size() > 0 && lines.get(lines.size() - 1).isEmpty()) {
+                lines.remove(lines.size() - 1);
+            }
+            int width = lines.get(0).length();
+            char[][] columns = new char[width][lines.size()];
+            for (int y = 0; y < lines.size(); y++) {
+                String line = lines.get(y);
+                for (int x = 0; x < width; x++) {
+                    columns[x][y] = x < line.length() ? line.charAt(x) : MarioLevelModel.EMPTY;
+                }
+            }
+            this.levels[i] = columns;
+        }
+    }
+
+    /**
+     * get the number of levels in the corpus
+     *
+     * @return number of levels
+     */
+    public int getNumLevels() {
+        return this.levels.length;
+    }
+
+    /**
+     * get the width of a level in the corpus
+     *
+     * @param level the index of the level
+     * @return the level width in tiles
+     */
+    public int getLevelWidth(int level) {
+        return this.levels[level].length;
+    }
+
+    /**
+     * Copy a slice of a corpus level into the model, out of range source positions are clamped to the last
+     * row or column of the source level the same way copyFromString does
+     *
+     * @param model   the model to copy into
+     * @param targetX the x of the target location
+     * @param targetY the y of the target location
+     * @param level   the index of the source level
+     * @param sourceX the x in the source level
+     * @param sourceY the y in the source level
+     * @param width   the width of the copied portion
+     * @param height  the height of the copied portion
+     */
+    public void copyToModel(MarioLevelModel model, int targetX, int targetY, int level, int sourceX, int sourceY, int width, int height) {
+        model.copyFromColumns(targetX, targetY, sourceX, sourceY, width, height, this.levels[level]);
+    }
+}
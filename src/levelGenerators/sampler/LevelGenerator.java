@@ -1,9 +1,5 @@
 package levelGenerators.sampler;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.util.List;
 import java.util.Random;
 
 import engine.core.MarioLevelGenerator;
@@ -29,26 +25,13 @@ public class LevelGenerator implements MarioLevelGenerator {
         this.folderName = sampleFolder;
     }
 
-    private String getRandomLevel() throws IOException {
-        File[] listOfFiles = new File(folderName).listFiles();
-        List<String> lines = Files.readAllLines(listOfFiles[rnd.nextInt(listOfFiles.length)].toPath());
-        String result = "";
-        for (int i = 0; i < lines.size(); i++) {
-            result += lines.get(i) + "\n";
-        }
-        return result;
-    }
-
     @Override
     public String getGeneratedLevel(MarioLevelModel model, MarioTimer timer) {
         rnd = new Random();
+        LevelCorpus corpus = LevelCorpus.getCorpus(folderName);
         model.clearMap();
         for (int i = 0; i < model.getWidth() / sampleWidth; i++) {
-            try {
-                model.copyFromString(i * sampleWidth, 0, i * sampleWidth, 0, sampleWidth, model.getHeight(), this.getRandomLevel());
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            corpus.copyToModel(model, i * sampleWidth, 0, rnd.nextInt(corpus.getNumLevels()), i * sampleWidth, 0, sampleWidth, model.getHeight());
         }
         return model.getMap();
     }